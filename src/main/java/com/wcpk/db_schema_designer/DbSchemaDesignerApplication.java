@@ -2,8 +2,10 @@ package com.wcpk.db_schema_designer;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class DbSchemaDesignerApplication {
 
 	public static void main(String[] args) {
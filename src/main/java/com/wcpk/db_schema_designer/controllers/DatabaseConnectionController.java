@@ -2,20 +2,70 @@ package com.wcpk.db_schema_designer.controllers;
 
 import com.wcpk.db_schema_designer.dto.*;
 import com.wcpk.db_schema_designer.model.Table;
+import com.wcpk.db_schema_designer.service.BatchExecutionService;
+import com.wcpk.db_schema_designer.service.BinaryResultEncoder;
+import com.wcpk.db_schema_designer.service.CopyExportService;
+import com.wcpk.db_schema_designer.service.CopyImportService;
+import com.wcpk.db_schema_designer.service.CursorService;
 import com.wcpk.db_schema_designer.service.DatabaseConnectionService;
+import com.wcpk.db_schema_designer.service.ExecutionRegistry;
+import com.wcpk.db_schema_designer.service.LiveSchemaDiffService;
+import com.wcpk.db_schema_designer.service.PlSqlGenerateService;
+import com.wcpk.db_schema_designer.service.ResultLayout;
+import com.wcpk.db_schema_designer.service.ResultStreamingService;
+import com.wcpk.db_schema_designer.service.SqlScriptExecutor;
+import com.wcpk.db_schema_designer.service.TargetBulkhead;
+import com.wcpk.db_schema_designer.service.TargetDataSourceRegistry;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/v1/database-connection")
 public class DatabaseConnectionController {
 
+    private static final String EXECUTION_ID_HEADER = "X-Execution-Id";
+
     @Autowired
     private DatabaseConnectionService databaseConnectionService;
+    @Autowired
+    private TargetDataSourceRegistry targetDataSourceRegistry;
+    @Autowired
+    private ResultStreamingService resultStreamingService;
+    @Autowired
+    private CursorService cursorService;
+    @Autowired
+    private TargetBulkhead targetBulkhead;
+    @Autowired
+    private ExecutionRegistry executionRegistry;
+    @Autowired
+    private BinaryResultEncoder binaryResultEncoder;
+    @Autowired
+    private CopyExportService copyExportService;
+    @Autowired
+    private CopyImportService copyImportService;
+    @Autowired
+    private BatchExecutionService batchExecutionService;
+    @Autowired
+    private SqlScriptExecutor sqlScriptExecutor;
+    @Autowired
+    private PlSqlGenerateService plSqlGenerateService;
+    @Autowired
+    private LiveSchemaDiffService liveSchemaDiffService;
     @PostMapping("/execute-sql-script")
     public ResponseEntity<String> executeSqlScript (@RequestBody DatabaseUploadRequest request)
     {
@@ -28,12 +78,39 @@ public class DatabaseConnectionController {
         }
     }
 
+    @PostMapping(value = "/execute-sql-script/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<String> executeSqlScriptStream(@RequestPart("request") DatabaseUploadRequest request,
+                                                         @RequestPart("file") MultipartFile file) throws IOException {
+        try (Reader script = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            String result = databaseConnectionService.uploadSqlScript(request, script);
+            if (result.startsWith("SQL script executed successfully")) {
+                return ResponseEntity.ok(result);
+            }
+            return ResponseEntity.badRequest().body(result);
+        }
+    }
+
+    @GetMapping("/execute-sql-script/{executionId}")
+    public ResponseEntity<ScriptProgress> getScriptProgress(@PathVariable String executionId) {
+        ScriptProgress progress = sqlScriptExecutor.getProgress(executionId);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
+
     @PostMapping("/get-tables")
     public ResponseEntity<TablesResponse> getTables (@RequestBody DatabaseConnectionRequest databaseConnectionRequest)
     {
         List<Table> tables = databaseConnectionService.getTablesData(databaseConnectionRequest);
         return ResponseEntity.ok(new TablesResponse(tables));
     }
+    @PostMapping("/diff-schema")
+    public ResponseEntity<LiveMigrationResponse> diffSchema(@RequestBody LiveMigrationRequest request) {
+        LiveMigrationResponse response = liveSchemaDiffService.diff(request);
+        if ("ERROR".equals(response.getStatus())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/get-routines")
     public ResponseEntity<List<RoutineInfo>> getRoutines (@RequestBody DatabaseConnectionRequest databaseConnectionRequest)
     {
@@ -43,14 +120,176 @@ public class DatabaseConnectionController {
 
 
     @PostMapping("/execute-code")
-    public ResponseEntity<ExecuteCodeResponse> executeSqlCode(@RequestBody ExecuteCodeRequest request) {
-        ExecuteCodeResponse response = databaseConnectionService.executeCode(request);
+    public ResponseEntity<?> executeSqlCode(@RequestBody ExecuteCodeRequest request,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                            HttpServletResponse servletResponse) throws IOException {
+        boolean binary = accept != null && accept.contains(BinaryResultEncoder.MEDIA_TYPE);
+        ResultLayout layout = binary ? ResultLayout.ROWS : ResultLayout.fromAccept(accept);
+        ExecuteCodeResponse response = databaseConnectionService.executeCode(request, layout);
+
+        HttpStatus status = "SUCCESS".equalsIgnoreCase(response.getStatus()) ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        if (binary) {
+            // Encoded straight into the response, on this thread, while the result budget is still held.
+            servletResponse.setStatus(status.value());
+            servletResponse.setContentType(BinaryResultEncoder.MEDIA_TYPE);
+            binaryResultEncoder.encode(response, servletResponse.getOutputStream());
+            return null;
+        }
+        return ResponseEntity.status(status)
+                .contentType(MediaType.parseMediaType(layout.getMediaType()))
+                .body(response);
+    }
+
+    @PostMapping("/execute-query")
+    public ResponseEntity<?> executePreparedQuery(@RequestBody PreparedQueryRequest request,
+                                                  @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        ParameterizedQuery query;
+        try {
+            request.getQuery().setParameterStyle("QUESTION");
+            query = plSqlGenerateService.generateParameterizedQuery(request.getQuery());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        ResultLayout layout = ResultLayout.fromAccept(accept);
+        ExecuteCodeResponse response = databaseConnectionService.executePrepared(request, query, layout);
+        HttpStatus status = "SUCCESS".equalsIgnoreCase(response.getStatus()) ? HttpStatus.OK : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status)
+                .contentType(MediaType.parseMediaType(layout.getMediaType()))
+                .body(response);
+    }
+
+    @PostMapping("/execute-batch")
+    public ResponseEntity<BatchExecuteResponse> executeBatch(@RequestBody BatchExecuteRequest request) {
+        BatchExecuteResponse response = batchExecutionService.execute(request);
+        if ("ERROR".equals(response.getStatus())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/execution-id")
+    public ResponseEntity<String> issueExecutionId() {
+        return ResponseEntity.ok(executionRegistry.issueId());
+    }
+
+    @PostMapping("/cancel/{executionId}")
+    public ResponseEntity<String> cancelExecution(@PathVariable String executionId) {
+        if (executionRegistry.cancel(executionId)) {
+            return ResponseEntity.ok("Cancel requested for execution " + executionId);
+        }
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No running execution with id " + executionId);
+    }
+
+    @PostMapping(value = "/execute-code/stream", produces = {"application/x-ndjson", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamSqlCode(@RequestBody ExecuteCodeRequest request,
+                                                               @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        boolean jsonArray = accept != null && accept.contains(MediaType.APPLICATION_JSON_VALUE) && !accept.contains("ndjson");
+        ResultStreamingService.StreamFormat format = jsonArray
+                ? ResultStreamingService.StreamFormat.JSON_ARRAY
+                : ResultStreamingService.StreamFormat.NDJSON;
+
+        // the body starts after the headers are sent, so the id is fixed and the bulkhead
+        // slot taken up front; the slot is held until the body has been written
+        request.setExecutionId(executionRegistry.resolveId(request.getExecutionId()));
+        TargetBulkhead.Permit permit = targetBulkhead.enter(request.getDatabaseConnectionRequest());
+        StreamingResponseBody body = out -> {
+            try {
+                resultStreamingService.streamCode(request, format, out);
+            } finally {
+                permit.close();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(jsonArray ? MediaType.APPLICATION_JSON : MediaType.parseMediaType("application/x-ndjson"))
+                .header(EXECUTION_ID_HEADER, request.getExecutionId())
+                .body(body);
+    }
+
+    @PostMapping("/export")
+    public ResponseEntity<?> export(@RequestBody ExportRequest request) {
+        CopyExportService.ExportFormat format;
+        String copySql;
+        try {
+            format = CopyExportService.ExportFormat.of(request.getFormat());
+            copySql = copyExportService.buildCopySql(request);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        String fileName = (request.getTableName() != null ? request.getTableName() : "export")
+                + "." + format.getExtension() + (request.isGzip() ? ".gz" : "");
+        request.setExecutionId(executionRegistry.resolveId(request.getExecutionId()));
+        TargetBulkhead.Permit permit = targetBulkhead.enter(request.getDatabaseConnectionRequest());
+        StreamingResponseBody body = out -> {
+            try {
+                copyExportService.export(request, copySql, out);
+            } finally {
+                permit.close();
+            }
+        };
 
-        if ("SUCCESS".equalsIgnoreCase(response.getStatus())) {
-            return ResponseEntity.ok(response);
-        } else {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        return ResponseEntity.ok()
+                .header(EXECUTION_ID_HEADER, request.getExecutionId())
+                .contentType(MediaType.parseMediaType(request.isGzip() ? "application/gzip" : format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportResult> importData(@RequestPart("request") ImportRequest request,
+                                                   @RequestPart("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            ImportResult result = copyImportService.importStream(request, in);
+            if ("SUCCESS".equals(result.getStatus())) {
+                return ResponseEntity.ok(result);
+            }
+            return ResponseEntity.badRequest().body(result);
         }
     }
 
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ImportResult> getImportProgress(@PathVariable String importId) {
+        ImportResult progress = copyImportService.getProgress(importId);
+        return progress != null ? ResponseEntity.ok(progress) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/cursor/open")
+    public ResponseEntity<CursorPageResponse> openCursor(@RequestBody CursorOpenRequest request) {
+        return toCursorResponse(cursorService.open(request));
+    }
+
+    @PostMapping("/cursor/{cursorId}/fetch")
+    public ResponseEntity<CursorPageResponse> fetchCursor(@PathVariable String cursorId,
+                                                          @RequestParam(required = false) Integer rows) {
+        return toCursorResponse(cursorService.fetch(cursorId, rows));
+    }
+
+    @DeleteMapping("/cursor/{cursorId}")
+    public ResponseEntity<Void> closeCursor(@PathVariable String cursorId) {
+        return cursorService.close(cursorId)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @GetMapping("/pool-stats")
+    public ResponseEntity<List<PoolStats>> getPoolStats ()
+    {
+        return ResponseEntity.ok(targetDataSourceRegistry.getStats());
+    }
+
+    @GetMapping("/bulkhead-stats")
+    public ResponseEntity<List<BulkheadStats>> getBulkheadStats ()
+    {
+        return ResponseEntity.ok(targetBulkhead.getStats());
+    }
+
+    private ResponseEntity<CursorPageResponse> toCursorResponse(CursorPageResponse response) {
+        return switch (response.getStatus()) {
+            case "SUCCESS" -> ResponseEntity.ok(response);
+            case "NOT_FOUND" -> ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+            default -> ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+        };
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.wcpk.db_schema_designer.controllers;
 
 import com.wcpk.db_schema_designer.dto.PLSQLRequest;
+import com.wcpk.db_schema_designer.dto.ParameterizedQuery;
 import com.wcpk.db_schema_designer.dto.QueryRequest;
 import com.wcpk.db_schema_designer.dto.RoutineExecutionRequest;
 import com.wcpk.db_schema_designer.service.PlSqlGenerateService;
@@ -24,6 +25,12 @@ public class PlSqlGenerateController {
         return ResponseEntity.ok(plSqlGenerateService.generateQueryCode(queryRequest));
     }
 
+    @PostMapping("/generate/query/parameterized")
+    public ResponseEntity<ParameterizedQuery> generateParameterizedQuery (@RequestBody QueryRequest queryRequest)
+    {
+        return ResponseEntity.ok(plSqlGenerateService.generateParameterizedQuery(queryRequest));
+    }
+
     @PostMapping("/generate/procedure")
     public ResponseEntity<String> generateProcedure(@RequestBody PLSQLRequest procedureRequest)
     {
@@ -1,21 +1,40 @@
 package com.wcpk.db_schema_designer.controllers;
 
+import com.wcpk.db_schema_designer.dto.GeneratedSchemaCacheStats;
+import com.wcpk.db_schema_designer.dto.SchemaDeployRequest;
+import com.wcpk.db_schema_designer.dto.SchemaDeployResponse;
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import com.wcpk.db_schema_designer.dto.SchemaMigrationRequest;
 import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import com.wcpk.db_schema_designer.dto.SchemaValidationResult;
 import com.wcpk.db_schema_designer.service.SQLGeneratorService;
+import com.wcpk.db_schema_designer.service.SchemaDeployer;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1")
 public class SQLGeneratorController {
 
     private final SQLGeneratorService sqlGeneratorService;
+    private final SchemaDeployer schemaDeployer;
 
-    public SQLGeneratorController(SQLGeneratorService sqlGeneratorService) {
+    public SQLGeneratorController(SQLGeneratorService sqlGeneratorService, SchemaDeployer schemaDeployer) {
         this.sqlGeneratorService = sqlGeneratorService;
+        this.schemaDeployer = schemaDeployer;
     }
 
     @PostMapping("/generate-sql")
@@ -23,5 +42,58 @@ public class SQLGeneratorController {
         String sqlScript = sqlGeneratorService.generateAndExecuteSQL(schemaRequest);
         return ResponseEntity.ok(sqlScript);
     }
-}
 
+    @PostMapping(value = "/generate-sql/stream", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<?> streamSQL(@RequestBody SchemaRequest schemaRequest) {
+        String errors = designErrors(schemaRequest);
+        if (errors != null) {
+            return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body(errors);
+        }
+
+        Reader script = sqlGeneratorService.openSQLReader(schemaRequest);
+        StreamingResponseBody body = out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            try (script) {
+                script.transferTo(writer);
+            }
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.TEXT_PLAIN).body(body);
+    }
+
+    @PostMapping("/generate-sql/validate")
+    public ResponseEntity<SchemaValidationResult> validateSQL(@RequestBody SchemaRequest schemaRequest) {
+        return ResponseEntity.ok(sqlGeneratorService.generateAndValidateSQL(schemaRequest));
+    }
+
+    @PostMapping("/generate-sql/migration")
+    public ResponseEntity<SchemaValidationResult> generateMigration(@RequestBody SchemaMigrationRequest migrationRequest) {
+        return ResponseEntity.ok(sqlGeneratorService.generateMigration(migrationRequest));
+    }
+
+    @PostMapping("/generate-sql/deploy")
+    public ResponseEntity<SchemaDeployResponse> deploySchema(@RequestBody SchemaDeployRequest request) {
+        SchemaDeployResponse response = schemaDeployer.deploy(request);
+        if ("ERROR".equals(response.getStatus())) {
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/generate-sql/cache-stats")
+    public ResponseEntity<GeneratedSchemaCacheStats> getCacheStats() {
+        return ResponseEntity.ok(sqlGeneratorService.getCacheStats());
+    }
+
+    private String designErrors(SchemaRequest schemaRequest) {
+        List<SchemaDiagnostic> errors = sqlGeneratorService.checkDesign(schemaRequest).stream()
+                .filter(d -> "ERROR".equals(d.getSeverity()))
+                .toList();
+        if (errors.isEmpty()) {
+            return null;
+        }
+        return "Error while generating script:\n" + errors.stream()
+                .map(SchemaDiagnostic::getMessage)
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,18 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchExecuteRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private List<String> statements;
+    private String sql;
+    private List<List<Object>> parameterSets;
+    private String transactionMode;
+    private String executionId;
+    private Integer timeoutSeconds;
+}
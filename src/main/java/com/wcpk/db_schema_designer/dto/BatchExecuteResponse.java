@@ -0,0 +1,16 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class BatchExecuteResponse {
+    private String status;
+    private String message;
+    private String executionId;
+    private boolean committed;
+    private List<StatementResult> results;
+}
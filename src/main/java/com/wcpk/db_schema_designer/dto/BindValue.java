@@ -0,0 +1,15 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class BindValue {
+    private int index;
+    private String column;
+    private String type;
+    private Object value;
+}
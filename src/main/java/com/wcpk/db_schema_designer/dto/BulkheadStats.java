@@ -0,0 +1,15 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class BulkheadStats {
+    private String target;
+    private int maxConcurrent;
+    private int maxQueue;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+}
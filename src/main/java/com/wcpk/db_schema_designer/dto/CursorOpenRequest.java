@@ -0,0 +1,13 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CursorOpenRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private String sqlCode;
+    private Integer pageSize;
+    private Integer timeoutSeconds;
+}
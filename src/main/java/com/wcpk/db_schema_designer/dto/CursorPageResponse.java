@@ -0,0 +1,20 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class CursorPageResponse {
+    private String status;
+    private String message;
+    private String cursorId;
+    private List<Map<String, Object>> rows;
+    private long rowsFetched;
+    private boolean exhausted;
+}
@@ -8,4 +8,7 @@ import lombok.Setter;
 public class DatabaseUploadRequest {
  private DatabaseConnectionRequest databaseConnectionRequest;
  private String sqlCode;
+ private String executionId;
+ private Integer timeoutSeconds;
+ private boolean commitPerBatch;
 }
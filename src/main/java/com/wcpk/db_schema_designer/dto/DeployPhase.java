@@ -0,0 +1,14 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class DeployPhase {
+    private String name;
+    private int statements;
+    private int waves;
+    private int statementsExecuted;
+    private long elapsedMs;
+}
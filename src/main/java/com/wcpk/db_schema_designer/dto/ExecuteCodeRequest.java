@@ -9,4 +9,6 @@ public class ExecuteCodeRequest {
     private DatabaseConnectionRequest databaseConnectionRequest;
     private String CodeType;
     private String sqlCode;
+    private String executionId;
+    private Integer timeoutSeconds;
 }
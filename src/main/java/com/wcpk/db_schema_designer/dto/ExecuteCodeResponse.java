@@ -1,6 +1,6 @@
 package com.wcpk.db_schema_designer.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -9,12 +9,30 @@ import java.util.Map;
 
 @Getter
 @Setter
-@AllArgsConstructor
 public class ExecuteCodeResponse {
     private String status;
     private String message;
     private List<Map<String, Object>> result;
     private boolean hasResult;
     private String resultType;
-}
+    private String executionId;
+    private boolean truncated;
+    private int rowCount;
+    private long estimatedBytes;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String layout;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<ResultColumn> columns;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Object[]> rows;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private List<Object[]> columnData;
 
+    public ExecuteCodeResponse(String status, String message, List<Map<String, Object>> result, boolean hasResult, String resultType) {
+        this.status = status;
+        this.message = message;
+        this.result = result;
+        this.hasResult = hasResult;
+        this.resultType = resultType;
+    }
+}
@@ -0,0 +1,18 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ExportRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private String executionId;
+    private Integer timeoutSeconds;
+    private String schemaName;
+    private String tableName;
+    private String sqlCode;
+    private String format;
+    private boolean header = true;
+    private boolean gzip;
+}
@@ -0,0 +1,15 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class GeneratedSchemaCacheStats {
+    private long hits;
+    private long misses;
+    private long evictions;
+    private int entries;
+    private long estimatedBytes;
+    private double hitRatio;
+}
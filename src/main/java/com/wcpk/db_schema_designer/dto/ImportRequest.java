@@ -0,0 +1,21 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class ImportRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private String executionId;
+    private Integer timeoutSeconds;
+    private String importId;
+    private String schemaName;
+    private String tableName;
+    private List<String> columns;
+    private String format;
+    private boolean header;
+    private Integer commitInterval;
+}
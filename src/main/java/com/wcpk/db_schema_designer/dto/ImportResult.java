@@ -0,0 +1,17 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ImportResult {
+    private String status;
+    private String message;
+    private String importId;
+    private long rowsCommitted;
+    private long rowsSent;
+    private int batchesCommitted;
+    private long elapsedMs;
+    private long rowsPerSecond;
+}
@@ -0,0 +1,13 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class LiveMigrationRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private SchemaRequest design;
+    private String schema = "public";
+    private boolean dropUnmatched;
+}
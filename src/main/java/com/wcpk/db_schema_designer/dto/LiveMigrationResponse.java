@@ -0,0 +1,16 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class LiveMigrationResponse {
+    private String status;
+    private String message;
+    private String sql;
+    private List<MigrationStep> steps;
+    private List<SchemaDiagnostic> diagnostics;
+}
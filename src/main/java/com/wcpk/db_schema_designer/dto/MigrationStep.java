@@ -0,0 +1,25 @@
+package com.wcpk.db_schema_designer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MigrationStep {
+    private int index;
+    private String sql;
+    private String operation;
+    private String table;
+    private String lockMode;
+    private boolean blocksReads;
+    private boolean blocksWrites;
+    private boolean scansTable;
+    private boolean rewritesTable;
+    private boolean transactional;
+    private Long estimatedRows;
+    private Long estimatedBytes;
+    private String impact;
+    private String note;
+}
@@ -0,0 +1,15 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ParameterizedQuery {
+    private String sql;
+    private List<BindValue> parameters;
+}
@@ -0,0 +1,13 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class PreparedQueryRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private QueryRequest query;
+    private String executionId;
+    private Integer timeoutSeconds;
+}
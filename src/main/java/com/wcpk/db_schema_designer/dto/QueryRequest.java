@@ -16,6 +16,7 @@ public class QueryRequest {
     private List<OrderBy> orderBy;
     private List<WhereCondition> where;
     public Integer limit;
+    private String parameterStyle;
 
     @Getter
     @Setter
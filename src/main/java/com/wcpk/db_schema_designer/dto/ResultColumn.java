@@ -0,0 +1,13 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResultColumn {
+    private String name;
+    private String type;
+}
@@ -0,0 +1,11 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class SchemaDeployRequest {
+    private DatabaseConnectionRequest databaseConnectionRequest;
+    private SchemaRequest design;
+}
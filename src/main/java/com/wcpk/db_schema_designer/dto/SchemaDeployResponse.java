@@ -0,0 +1,18 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+public class SchemaDeployResponse {
+    private String status;
+    private String message;
+    private int parallelism;
+    private int statementsExecuted;
+    private long elapsedMs;
+    private List<DeployPhase> phases;
+    private List<SchemaDiagnostic> diagnostics;
+}
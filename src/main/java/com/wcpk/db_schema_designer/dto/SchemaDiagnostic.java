@@ -0,0 +1,20 @@
+package com.wcpk.db_schema_designer.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SchemaDiagnostic {
+    private String severity = "ERROR";
+    private String code;
+    private String message;
+    private String table;
+    private String field;
+    private Integer statementIndex;
+    private Long line;
+    private Integer position;
+    private String statement;
+}
@@ -0,0 +1,16 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SchemaValidationResult {
+    private boolean valid;
+    private String sql;
+    private List<SchemaDiagnostic> diagnostics;
+}
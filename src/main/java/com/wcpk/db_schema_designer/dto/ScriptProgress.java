@@ -0,0 +1,17 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class ScriptProgress {
+    private String executionId;
+    private String status;
+    private String message;
+    private long statementsExecuted;
+    private long currentStatement;
+    private long currentLine;
+    private long copyRows;
+    private long elapsedMs;
+}
@@ -0,0 +1,24 @@
+package com.wcpk.db_schema_designer.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+public class StatementResult {
+    private int index;
+    private String status;
+    private Integer updateCount;
+    private List<Map<String, Object>> rows;
+    private boolean truncated;
+    private String message;
+    private String sqlState;
+
+    public StatementResult(int index) {
+        this.index = index;
+        this.status = "NOT_EXECUTED";
+    }
+}
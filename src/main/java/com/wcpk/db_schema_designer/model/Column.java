@@ -8,6 +8,11 @@ import lombok.Setter;
 public class Column {
     private String name;
     private String type;
+    private String formattedType;
+    private int ordinalPosition;
+    private boolean nullable = true;
+    private boolean primaryKey;
+    private String defaultValue;
 
     public Column(String columnName, String dataType) {
         this.name=columnName;
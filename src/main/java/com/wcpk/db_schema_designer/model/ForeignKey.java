@@ -0,0 +1,21 @@
+package com.wcpk.db_schema_designer.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ForeignKey {
+    private String name;
+    private List<String> columns = new ArrayList<>();
+    private String referencedSchema;
+    private String referencedTable;
+    private List<String> referencedColumns = new ArrayList<>();
+
+    public ForeignKey(String name) {
+        this.name = name;
+    }
+}
@@ -0,0 +1,23 @@
+package com.wcpk.db_schema_designer.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class Index {
+    private String name;
+    private List<String> columns = new ArrayList<>();
+    private boolean unique;
+    private boolean primary;
+    private boolean constraint;
+    private String method;
+    private String definition;
+
+    public Index(String name) {
+        this.name = name;
+    }
+}
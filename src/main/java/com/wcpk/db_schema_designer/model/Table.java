@@ -10,7 +10,11 @@ import java.util.List;
 @Setter
 public class Table {
     private String name;
+    private String schema;
     private List<Column> columns = new ArrayList<>();
+    private List<String> primaryKey = new ArrayList<>();
+    private List<ForeignKey> foreignKeys = new ArrayList<>();
+    private List<Index> indexes = new ArrayList<>();
 
     public Table(String tableName) {
         this.name=tableName;
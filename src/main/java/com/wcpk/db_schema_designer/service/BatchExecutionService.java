@@ -0,0 +1,261 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.BatchExecuteRequest;
+import com.wcpk.db_schema_designer.dto.BatchExecuteResponse;
+import com.wcpk.db_schema_designer.dto.StatementResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Runs an ordered list of statements, or one statement with many parameter sets,
+ * using JDBC batching so consecutive statements share a round trip. Statements
+ * that return rows, including DML with RETURNING, run on their own so their
+ * result sets can be reported.
+ * <p>
+ * Every batch runs under a savepoint. Inside a transaction the driver reports
+ * every statement of a failed batch as failed, so after a failure the batch is
+ * rolled back to its savepoint and run again one statement at a time to find
+ * the statement that failed. ALL_OR_NOTHING then rolls back everything;
+ * CONTINUE_ON_ERROR rolls back only the failing statement and carries on.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchExecutionService {
+
+    private static final Pattern RETURNING = Pattern.compile("\\bRETURNING\\b", Pattern.CASE_INSENSITIVE);
+
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final TargetBulkhead targetBulkhead;
+    private final ExecutionRegistry executionRegistry;
+    private final ResultBudget resultBudget;
+    private final MetadataCache metadataCache;
+
+    public BatchExecuteResponse execute(BatchExecuteRequest request) {
+        request.setExecutionId(executionRegistry.resolveId(request.getExecutionId()));
+        ResultBudget.Reservation reservation = resultBudget.reserve();
+        try {
+            return targetBulkhead.call(request.getDatabaseConnectionRequest(), () -> doExecute(request, reservation));
+        } finally {
+            resultBudget.releaseAfterResponse(reservation);
+        }
+    }
+
+    private BatchExecuteResponse doExecute(BatchExecuteRequest request, ResultBudget.Reservation reservation) {
+        boolean parameterized = request.getSql() != null && request.getParameterSets() != null;
+        int count = parameterized ? request.getParameterSets().size()
+                : request.getStatements() == null ? 0 : request.getStatements().size();
+        boolean continueOnError = "CONTINUE_ON_ERROR".equalsIgnoreCase(request.getTransactionMode());
+
+        List<StatementResult> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new StatementResult(i));
+        }
+
+        BatchExecuteResponse response = new BatchExecuteResponse();
+        response.setExecutionId(request.getExecutionId());
+        response.setResults(results);
+
+        SQLException rollbackCause = null;
+        try (Connection conn = dataSourceRegistry.getConnection(request.getDatabaseConnectionRequest())) {
+            conn.setAutoCommit(false);
+            try {
+                if (parameterized) {
+                    try (ExecutionRegistry.Execution<PreparedStatement> execution = executionRegistry.register(
+                            request.getExecutionId(), conn.prepareStatement(request.getSql()), request.getTimeoutSeconds())) {
+                        PreparedStatement ps = execution.statement();
+                        if (returnsRows(request.getSql())) {
+                            for (int i = 0; i < count; i++) {
+                                List<Object> values = request.getParameterSets().get(i);
+                                runSingle(conn, ps, () -> {
+                                    bind(ps, values);
+                                    return ps.execute();
+                                }, results.get(i), continueOnError, reservation);
+                            }
+                        } else {
+                            runBatches(conn, 0, count, (from, to) -> {
+                                ps.clearBatch();
+                                for (int i = from; i < to; i++) {
+                                    bind(ps, request.getParameterSets().get(i));
+                                    ps.addBatch();
+                                }
+                                return ps.executeBatch();
+                            }, results, continueOnError);
+                        }
+                    }
+                } else {
+                    try (ExecutionRegistry.Execution<Statement> execution = executionRegistry.register(
+                            request.getExecutionId(), conn.createStatement(), request.getTimeoutSeconds())) {
+                        runStatements(conn, execution.statement(), request.getStatements(), results, continueOnError,
+                                reservation);
+                    }
+                }
+                conn.commit();
+                response.setCommitted(true);
+            } catch (SQLException e) {
+                conn.rollback();
+                response.setCommitted(false);
+                rollbackCause = e;
+            } catch (RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            response.setStatus("ERROR");
+            response.setMessage("Connection error: " + e.getMessage());
+            return response;
+        }
+
+        metadataCache.invalidate(request.getDatabaseConnectionRequest());
+
+        long failed = results.stream().filter(r -> "ERROR".equals(r.getStatus())).count();
+        if (!response.isCommitted()) {
+            response.setStatus("ERROR");
+            // a failed commit is not tied to any statement, so its own error is reported instead
+            response.setMessage(failed > 0
+                    ? "Batch rolled back, " + failed + " statement(s) failed."
+                    : "Batch rolled back: " + rollbackCause.getMessage());
+        } else if (failed > 0) {
+            response.setStatus("PARTIAL");
+            response.setMessage("Batch committed, " + failed + " of " + count + " statement(s) failed.");
+        } else {
+            response.setStatus("SUCCESS");
+            response.setMessage("Batch committed, " + count + " statement(s) executed.");
+        }
+        return response;
+    }
+
+    private void runStatements(Connection conn, Statement stmt, List<String> statements, List<StatementResult> results,
+                               boolean continueOnError, ResultBudget.Reservation reservation) throws SQLException {
+        int i = 0;
+        while (i < statements.size()) {
+            if (returnsRows(statements.get(i))) {
+                String sql = statements.get(i);
+                runSingle(conn, stmt, () -> stmt.execute(sql), results.get(i), continueOnError, reservation);
+                i++;
+                continue;
+            }
+
+            int end = i;
+            while (end < statements.size() && !returnsRows(statements.get(end))) {
+                end++;
+            }
+            runBatches(conn, i, end, (from, to) -> {
+                stmt.clearBatch();
+                for (int k = from; k < to; k++) {
+                    stmt.addBatch(statements.get(k));
+                }
+                return stmt.executeBatch();
+            }, results, continueOnError);
+            i = end;
+        }
+    }
+
+    private void runSingle(Connection conn, Statement stmt, Execute execute, StatementResult result,
+                           boolean continueOnError, ResultBudget.Reservation reservation) throws SQLException {
+        Savepoint savepoint = continueOnError ? conn.setSavepoint() : null;
+        try {
+            if (execute.run()) {
+                try (ResultSet rs = stmt.getResultSet()) {
+                    ResultBudget.MaterializedResult rows = resultBudget.materialize(rs, reservation);
+                    result.setRows(rows.rows());
+                    result.setTruncated(rows.truncated());
+                }
+            } else {
+                result.setUpdateCount(stmt.getUpdateCount());
+            }
+            result.setStatus("SUCCESS");
+            if (savepoint != null) conn.releaseSavepoint(savepoint);
+        } catch (SQLException e) {
+            fail(result, e);
+            if (!continueOnError) throw e;
+            conn.rollback(savepoint);
+        }
+    }
+
+    /**
+     * Runs statements {@code [from, to)} as one batch, or one by one if the batch
+     * fails. Failures are recorded in {@code results}; with {@code continueOnError}
+     * only the failing statements are rolled back, otherwise the first failure is
+     * rethrown.
+     */
+    static void runBatches(Connection conn, int from, int to, BatchRunner runner, List<StatementResult> results,
+                           boolean continueOnError) throws SQLException {
+        Savepoint savepoint = conn.setSavepoint();
+        try {
+            record(results, from, runner.run(from, to));
+            conn.releaseSavepoint(savepoint);
+            return;
+        } catch (BatchUpdateException e) {
+            // the update counts do not say which statement failed, so find it one by one
+            conn.rollback(savepoint);
+            conn.releaseSavepoint(savepoint);
+        }
+
+        for (int i = from; i < to; i++) {
+            Savepoint single = continueOnError ? conn.setSavepoint() : null;
+            try {
+                record(results, i, runner.run(i, i + 1));
+                if (single != null) conn.releaseSavepoint(single);
+            } catch (BatchUpdateException e) {
+                fail(results.get(i), e.getNextException() != null ? e.getNextException() : e);
+                if (!continueOnError) throw e;
+                conn.rollback(single);
+                conn.releaseSavepoint(single);
+            }
+        }
+    }
+
+    private static void record(List<StatementResult> results, int offset, int[] counts) {
+        for (int k = 0; k < counts.length; k++) {
+            StatementResult result = results.get(offset + k);
+            result.setStatus("SUCCESS");
+            // reWriteBatchedInserts folds rows into multi-row statements and reports no counts
+            result.setUpdateCount(counts[k] == Statement.SUCCESS_NO_INFO ? null : counts[k]);
+        }
+    }
+
+    private static void fail(StatementResult result, SQLException e) {
+        result.setStatus("ERROR");
+        result.setMessage(e.getMessage());
+        result.setSqlState(e.getSQLState());
+    }
+
+    private void bind(PreparedStatement ps, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            Object value = values.get(i);
+            if (value instanceof String) {
+                ps.setObject(i + 1, value, Types.OTHER);
+            } else {
+                ps.setObject(i + 1, value);
+            }
+        }
+    }
+
+    static boolean returnsRows(String sql) {
+        String head = sql.stripLeading();
+        int end = 0;
+        while (end < head.length() && Character.isLetter(head.charAt(end))) end++;
+        return switch (head.substring(0, end).toUpperCase()) {
+            case "SELECT", "WITH", "VALUES", "TABLE", "SHOW", "EXPLAIN" -> true;
+            case "INSERT", "UPDATE", "DELETE", "MERGE" -> RETURNING.matcher(head).find();
+            default -> false;
+        };
+    }
+
+    @FunctionalInterface
+    interface BatchRunner {
+        int[] run(int from, int to) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface Execute {
+        boolean run() throws SQLException;
+    }
+}
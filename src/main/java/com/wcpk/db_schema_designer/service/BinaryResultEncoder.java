@@ -0,0 +1,106 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.ExecuteCodeResponse;
+import com.wcpk.db_schema_designer.dto.ResultColumn;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Length-prefixed binary encoding of a ROWS-layout {@link ExecuteCodeResponse}.
+ *
+ * <pre>
+ * "DBR1"
+ * string status, string message, string resultType, string executionId
+ * bool truncated
+ * int32 columnCount, then per column: string name, string type
+ * int32 rowCount, then per cell: byte tag + value
+ * </pre>
+ * Strings are an int32 byte length (-1 for null) followed by UTF-8 bytes.
+ * Cell tags: 0 null, 1 int64, 2 float64, 3 string, 4 bool, 5 bytes (int32 length + data).
+ */
+@Component
+public class BinaryResultEncoder {
+
+    public static final String MEDIA_TYPE = "application/vnd.dbdesigner.result";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT64 = 1;
+    private static final byte TAG_FLOAT64 = 2;
+    private static final byte TAG_STRING = 3;
+    private static final byte TAG_BOOL = 4;
+    private static final byte TAG_BYTES = 5;
+
+    /**
+     * Writes the encoded response to {@code target}. The stream is flushed but
+     * not closed, so it can be the servlet response stream itself.
+     */
+    public void encode(ExecuteCodeResponse response, OutputStream target) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(target, BUFFER_SIZE));
+        out.writeBytes("DBR1");
+        writeString(out, response.getStatus());
+        writeString(out, response.getMessage());
+        writeString(out, response.getResultType());
+        writeString(out, response.getExecutionId());
+        out.writeBoolean(response.isTruncated());
+
+        List<ResultColumn> columns = response.getColumns() == null ? List.of() : response.getColumns();
+        out.writeInt(columns.size());
+        for (ResultColumn column : columns) {
+            writeString(out, column.getName());
+            writeString(out, column.getType());
+        }
+
+        List<Object[]> rows = response.getRows() == null ? List.of() : response.getRows();
+        out.writeInt(rows.size());
+        for (Object[] row : rows) {
+            for (Object value : row) {
+                writeValue(out, value);
+            }
+        }
+        out.flush();
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(TAG_INT64);
+            out.writeLong(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(TAG_FLOAT64);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean b) {
+            out.writeByte(TAG_BOOL);
+            out.writeBoolean(b);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(TAG_BYTES);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (value instanceof BigDecimal decimal) {
+            out.writeByte(TAG_STRING);
+            writeString(out, decimal.toPlainString());
+        } else {
+            out.writeByte(TAG_STRING);
+            writeString(out, value.toString());
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -0,0 +1,353 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.ParameterInfo;
+import com.wcpk.db_schema_designer.dto.RoutineInfo;
+import com.wcpk.db_schema_designer.model.Column;
+import com.wcpk.db_schema_designer.model.ForeignKey;
+import com.wcpk.db_schema_designer.model.Index;
+import com.wcpk.db_schema_designer.model.Table;
+import org.springframework.stereotype.Component;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Reads the whole user catalog of a PostgreSQL database with a fixed number of
+ * set-based pg_catalog queries instead of one metadata call per table.
+ */
+@Component
+public class CatalogIntrospector {
+
+    private static final String USER_SCHEMAS =
+            "n.nspname NOT IN ('pg_catalog', 'information_schema') " +
+            "AND n.nspname NOT LIKE 'pg_toast%' AND n.nspname NOT LIKE 'pg_temp%' ";
+
+    private static final String COLUMNS_SQL =
+            "SELECT c.oid, n.nspname, c.relname, a.attname, a.attnum, t.typname, " +
+            "format_type(a.atttypid, a.atttypmod) AS formatted_type, a.attnotnull, " +
+            "pg_get_expr(d.adbin, d.adrelid) AS default_value " +
+            "FROM pg_class c " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "LEFT JOIN pg_attribute a ON a.attrelid = c.oid AND a.attnum > 0 AND NOT a.attisdropped " +
+            "LEFT JOIN pg_type t ON t.oid = a.atttypid " +
+            "LEFT JOIN pg_attrdef d ON d.adrelid = c.oid AND d.adnum = a.attnum " +
+            "WHERE c.relkind IN ('r', 'p') AND " + USER_SCHEMAS +
+            "ORDER BY n.nspname, c.relname, a.attnum";
+
+    private static final String CONSTRAINTS_SQL =
+            "SELECT con.conrelid, con.conname, con.contype, a.attname, fa.attname AS ref_column, " +
+            "fn.nspname AS ref_schema, fc.relname AS ref_table " +
+            "FROM pg_constraint con " +
+            "JOIN pg_namespace n ON n.oid = con.connamespace " +
+            "CROSS JOIN LATERAL unnest(con.conkey, con.confkey) WITH ORDINALITY AS k(attnum, ref_attnum, ord) " +
+            "JOIN pg_attribute a ON a.attrelid = con.conrelid AND a.attnum = k.attnum " +
+            "LEFT JOIN pg_attribute fa ON fa.attrelid = con.confrelid AND fa.attnum = k.ref_attnum " +
+            "LEFT JOIN pg_class fc ON fc.oid = con.confrelid " +
+            "LEFT JOIN pg_namespace fn ON fn.oid = fc.relnamespace " +
+            "WHERE con.contype IN ('p', 'f') AND " + USER_SCHEMAS +
+            "ORDER BY con.conrelid, con.conname, k.ord";
+
+    private static final String INDEXES_SQL =
+            "SELECT i.indrelid, ic.relname AS index_name, i.indisunique, i.indisprimary, am.amname, " +
+            "EXISTS (SELECT 1 FROM pg_constraint con WHERE con.conindid = i.indexrelid " +
+            "        AND con.contype IN ('p', 'u', 'x')) AS is_constraint, " +
+            "pg_get_indexdef(i.indexrelid) AS definition, " +
+            "ARRAY(SELECT pg_get_indexdef(i.indexrelid, k, true) " +
+            "      FROM generate_series(1, i.indnatts) AS k ORDER BY k) AS columns " +
+            "FROM pg_index i " +
+            "JOIN pg_class ic ON ic.oid = i.indexrelid " +
+            "JOIN pg_namespace n ON n.oid = ic.relnamespace " +
+            "JOIN pg_am am ON am.oid = ic.relam " +
+            "WHERE " + USER_SCHEMAS +
+            "ORDER BY i.indrelid, ic.relname";
+
+    // pg_total_relation_size stats every file of a relation, so only the tables
+    // of the schema being migrated are measured.
+    private static final String TABLE_STATS_SQL =
+            "SELECT n.nspname, c.relname, " +
+            "CASE WHEN c.reltuples < 0 THEN NULL ELSE c.reltuples::bigint END AS estimated_rows, " +
+            "pg_total_relation_size(c.oid) AS total_bytes " +
+            "FROM pg_class c " +
+            "JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE c.relkind IN ('r', 'p') AND n.nspname = ?";
+
+    private static final String ROUTINES_SQL =
+            "SELECT routine_name, routine_type, data_type, specific_name " +
+            "FROM information_schema.routines " +
+            "WHERE specific_schema = ?";
+
+    private static final String PARAMETERS_SQL =
+            "SELECT specific_name, parameter_name, data_type, parameter_mode, ordinal_position " +
+            "FROM information_schema.parameters " +
+            "WHERE specific_schema = ?";
+
+    // Only catalog rows of user relations are read, through the catalogs' relation
+    // indexes, so system catalogs and other databases' size do not matter.
+    private static final String TABLES_FINGERPRINT_SQL =
+            "WITH rel AS (SELECT c.oid, c.xmin FROM pg_class c " +
+            "             JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "             WHERE c.relkind IN ('r', 'p', 'i', 'I') AND " + USER_SCHEMAS + ") " +
+            "SELECT concat_ws(':', " +
+            rowStamp("rel", "rel.oid, rel.xmin", "") + ", " +
+            rowStamp("pg_attribute a JOIN rel ON rel.oid = a.attrelid", "a.attrelid, a.attnum, a.xmin", "WHERE a.attnum > 0") + ", " +
+            rowStamp("pg_attrdef d JOIN rel ON rel.oid = d.adrelid", "d.oid, d.xmin", "") + ", " +
+            rowStamp("pg_constraint con JOIN rel ON rel.oid = con.conrelid", "con.oid, con.xmin", "") + ", " +
+            rowStamp("pg_index i JOIN rel ON rel.oid = i.indrelid", "i.indexrelid, i.xmin", "") + ")";
+
+    private static final String ROUTINES_FINGERPRINT_SQL =
+            "SELECT " + rowStamp("pg_proc p JOIN pg_namespace n ON n.oid = p.pronamespace", "p.oid, p.xmin",
+                    "WHERE n.nspname = 'public'");
+
+    /**
+     * Stamp that changes whenever DDL touches user tables, columns, defaults,
+     * constraints or indexes: every catalog row a change writes gets a new xmin,
+     * and the stamp sums a hash of each row's identity and xmin, so it does not
+     * depend on xids growing monotonically.
+     */
+    public String tablesFingerprint(Connection conn) throws SQLException {
+        return queryString(conn, TABLES_FINGERPRINT_SQL);
+    }
+
+    public String routinesFingerprint(Connection conn) throws SQLException {
+        return queryString(conn, ROUTINES_FINGERPRINT_SQL);
+    }
+
+    Map<Long, Table> loadTables(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            return readTables(stmt.executeQuery(COLUMNS_SQL));
+        }
+    }
+
+    List<ConstraintRow> loadConstraints(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            return readConstraints(stmt.executeQuery(CONSTRAINTS_SQL));
+        }
+    }
+
+    List<IndexRow> loadIndexes(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            return readIndexes(stmt.executeQuery(INDEXES_SQL));
+        }
+    }
+
+    Map<Long, Table> readTables(ResultSet rs) throws SQLException {
+        Map<Long, Table> tables = new LinkedHashMap<>();
+
+        try (rs) {
+            while (rs.next()) {
+                long oid = rs.getLong("oid");
+                Table table = tables.get(oid);
+                if (table == null) {
+                    table = new Table(rs.getString("relname"));
+                    table.setSchema(rs.getString("nspname"));
+                    tables.put(oid, table);
+                }
+
+                String columnName = rs.getString("attname");
+                if (columnName == null) continue;
+
+                Column column = new Column(columnName, rs.getString("typname"));
+                column.setFormattedType(rs.getString("formatted_type"));
+                column.setOrdinalPosition(rs.getInt("attnum"));
+                column.setNullable(!rs.getBoolean("attnotnull"));
+                column.setDefaultValue(rs.getString("default_value"));
+                table.addColumn(column);
+            }
+        }
+        return tables;
+    }
+
+    List<ConstraintRow> readConstraints(ResultSet rs) throws SQLException {
+        List<ConstraintRow> constraints = new ArrayList<>();
+
+        try (rs) {
+            while (rs.next()) {
+                constraints.add(new ConstraintRow(
+                        rs.getLong("conrelid"),
+                        rs.getString("conname"),
+                        rs.getString("contype"),
+                        rs.getString("attname"),
+                        rs.getString("ref_schema"),
+                        rs.getString("ref_table"),
+                        rs.getString("ref_column")));
+            }
+        }
+        return constraints;
+    }
+
+    List<IndexRow> readIndexes(ResultSet rs) throws SQLException {
+        List<IndexRow> indexes = new ArrayList<>();
+
+        try (rs) {
+            while (rs.next()) {
+                Array columns = rs.getArray("columns");
+                indexes.add(new IndexRow(
+                        rs.getLong("indrelid"),
+                        rs.getString("index_name"),
+                        rs.getBoolean("indisunique"),
+                        rs.getBoolean("indisprimary"),
+                        rs.getBoolean("is_constraint"),
+                        rs.getString("amname"),
+                        rs.getString("definition"),
+                        columns == null ? List.of() : Arrays.asList((String[]) columns.getArray())));
+            }
+        }
+        return indexes;
+    }
+
+    /**
+     * Planner estimates of table sizes; rows are {@code null} for tables that
+     * have never been analyzed.
+     */
+    List<TableStats> introspectTableStats(Connection conn, String schema) throws SQLException {
+        List<TableStats> stats = new ArrayList<>();
+
+        try (PreparedStatement statsStmt = conn.prepareStatement(TABLE_STATS_SQL)) {
+            statsStmt.setString(1, schema);
+
+            try (ResultSet rs = statsStmt.executeQuery()) {
+                while (rs.next()) {
+                    long rows = rs.getLong("estimated_rows");
+                    Long estimatedRows = rs.wasNull() ? null : rows;
+                    stats.add(new TableStats(
+                            rs.getString("nspname"),
+                            rs.getString("relname"),
+                            estimatedRows,
+                            rs.getLong("total_bytes")));
+                }
+            }
+        }
+        return stats;
+    }
+
+    List<Table> assemble(Map<Long, Table> tables, List<ConstraintRow> constraints, List<IndexRow> indexes) {
+        Map<String, ForeignKey> foreignKeys = new HashMap<>();
+
+        for (ConstraintRow row : constraints) {
+            Table table = tables.get(row.tableOid());
+            if (table == null) continue;
+
+            if ("p".equals(row.type())) {
+                table.getPrimaryKey().add(row.column());
+                for (Column column : table.getColumns()) {
+                    if (column.getName().equals(row.column())) {
+                        column.setPrimaryKey(true);
+                    }
+                }
+            } else {
+                ForeignKey fk = foreignKeys.computeIfAbsent(row.tableOid() + "." + row.name(), k -> {
+                    ForeignKey created = new ForeignKey(row.name());
+                    created.setReferencedSchema(row.refSchema());
+                    created.setReferencedTable(row.refTable());
+                    table.getForeignKeys().add(created);
+                    return created;
+                });
+                fk.getColumns().add(row.column());
+                fk.getReferencedColumns().add(row.refColumn());
+            }
+        }
+
+        for (IndexRow row : indexes) {
+            Table table = tables.get(row.tableOid());
+            if (table == null) continue;
+
+            Index index = new Index(row.name());
+            index.setUnique(row.unique());
+            index.setPrimary(row.primary());
+            index.setConstraint(row.constraint());
+            index.setMethod(row.method());
+            index.setDefinition(row.definition());
+            index.getColumns().addAll(row.columns());
+            table.getIndexes().add(index);
+        }
+
+        return new ArrayList<>(tables.values());
+    }
+
+    List<RoutineRow> loadRoutines(Connection conn) throws SQLException {
+        List<RoutineRow> routines = new ArrayList<>();
+
+        try (PreparedStatement routineStmt = conn.prepareStatement(ROUTINES_SQL)) {
+            routineStmt.setString(1, "public");
+
+            try (ResultSet rs = routineStmt.executeQuery()) {
+                while (rs.next()) {
+                    routines.add(new RoutineRow(
+                            rs.getString("routine_name"),
+                            rs.getString("routine_type"),
+                            rs.getString("data_type"),
+                            rs.getString("specific_name")));
+                }
+            }
+        }
+        return routines;
+    }
+
+    Map<String, List<ParameterInfo>> loadRoutineParameters(Connection conn) throws SQLException {
+        Map<String, List<ParameterInfo>> paramMap = new HashMap<>();
+
+        try (PreparedStatement paramsStmt = conn.prepareStatement(PARAMETERS_SQL)) {
+            paramsStmt.setString(1, "public");
+
+            try (ResultSet prs = paramsStmt.executeQuery()) {
+                while (prs.next()) {
+                    String specificName = prs.getString("specific_name");
+                    String paramName = prs.getString("parameter_name");
+
+                    if (paramName == null) continue;
+
+                    ParameterInfo param = new ParameterInfo();
+                    param.setName(paramName);
+                    param.setDataType(prs.getString("data_type"));
+                    param.setMode(prs.getString("parameter_mode"));
+                    param.setPosition(prs.getInt("ordinal_position"));
+
+                    paramMap.computeIfAbsent(specificName, k -> new ArrayList<>()).add(param);
+                }
+            }
+        }
+        return paramMap;
+    }
+
+    List<RoutineInfo> assembleRoutines(List<RoutineRow> rows, Map<String, List<ParameterInfo>> parameters) {
+        List<RoutineInfo> routines = new ArrayList<>();
+
+        for (RoutineRow row : rows) {
+            RoutineInfo info = new RoutineInfo();
+            info.setName(row.name());
+            info.setType(row.type());
+            info.setReturnType("FUNCTION".equalsIgnoreCase(row.type()) ? row.returnType() : null);
+            info.setParameters(parameters.getOrDefault(row.specificName(), new ArrayList<>()));
+            routines.add(info);
+        }
+        return routines;
+    }
+
+    /** Count plus an order-independent sum of row hashes, in constant memory. */
+    private static String rowStamp(String from, String identity, String where) {
+        String row = identity.replace(", ", "::text || '.' || ") + "::text";
+        return "(SELECT count(*) || '/' || coalesce(sum(hashtext(" + row + ")::bigint), 0) FROM " + from
+                + (where.isEmpty() ? "" : " " + where) + ")";
+    }
+
+    private String queryString(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            return rs.next() ? rs.getString(1) : "";
+        }
+    }
+
+    record ConstraintRow(long tableOid, String name, String type, String column,
+                         String refSchema, String refTable, String refColumn) {
+    }
+
+    record IndexRow(long tableOid, String name, boolean unique, boolean primary, boolean constraint,
+                    String method, String definition, List<String> columns) {
+    }
+
+    public record TableStats(String schema, String name, Long estimatedRows, long totalBytes) {
+    }
+
+    record RoutineRow(String name, String type, String returnType, String specificName) {
+    }
+}
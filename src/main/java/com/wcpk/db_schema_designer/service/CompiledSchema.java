@@ -0,0 +1,94 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+
+import java.util.*;
+
+/**
+ * Indexed view of a {@link SchemaRequest}, built in one pass: tables by
+ * lower-cased name and their primary keys, including composite ones. Lookups
+ * are constant time, so the generators stay linear in the size of the design. The view itself is
+ * immutable; the request it was built from must not be modified while in use.
+ */
+public final class CompiledSchema {
+
+    /**
+     * @param primaryKey primary key fields in declaration order
+     */
+    public record CompiledTable(SchemaRequest.Table source, List<SchemaRequest.Field> fields,
+                                List<SchemaRequest.Field> primaryKey) {
+
+        public String name() {
+            return source.getName();
+        }
+
+        /** First primary key field, which relationships reference; {@code null} if there is none. */
+        public SchemaRequest.Field primaryKeyField() {
+            return primaryKey.isEmpty() ? null : primaryKey.get(0);
+        }
+    }
+
+    private final List<CompiledTable> tables;
+    private final Map<String, CompiledTable> tablesByName;
+    private final List<SchemaRequest.Relationship> relationships;
+
+    private CompiledSchema(List<CompiledTable> tables, Map<String, CompiledTable> tablesByName,
+                           List<SchemaRequest.Relationship> relationships) {
+        this.tables = tables;
+        this.tablesByName = tablesByName;
+        this.relationships = relationships;
+    }
+
+    public static CompiledSchema compile(SchemaRequest schemaRequest) {
+        List<SchemaRequest.Table> sourceTables = orEmpty(schemaRequest.getTables());
+        List<SchemaRequest.Relationship> relationships = orEmpty(schemaRequest.getRelationships());
+
+        List<CompiledTable> tables = new ArrayList<>(sourceTables.size());
+        Map<String, CompiledTable> tablesByName = new HashMap<>(sourceTables.size() * 2);
+        for (SchemaRequest.Table table : sourceTables) {
+            List<SchemaRequest.Field> fields = orEmpty(table.getFields());
+            List<SchemaRequest.Field> primaryKey = new ArrayList<>(1);
+            for (SchemaRequest.Field field : fields) {
+                if (field.isPrimaryKey()) primaryKey.add(field);
+            }
+
+            CompiledTable compiled = new CompiledTable(table, List.copyOf(fields), List.copyOf(primaryKey));
+            tables.add(compiled);
+            if (table.getName() != null) tablesByName.putIfAbsent(key(table.getName()), compiled);
+        }
+        return new CompiledSchema(List.copyOf(tables), Collections.unmodifiableMap(tablesByName), List.copyOf(relationships));
+    }
+
+    public List<CompiledTable> tables() {
+        return tables;
+    }
+
+    public CompiledTable table(String name) {
+        return name == null ? null : tablesByName.get(key(name));
+    }
+
+    public List<SchemaRequest.Relationship> relationships() {
+        return relationships;
+    }
+
+    /**
+     * The field relationships to {@code tableName} reference.
+     *
+     * @throws IllegalArgumentException if the table does not exist or has no primary key
+     */
+    public SchemaRequest.Field primaryKey(String tableName) {
+        CompiledTable table = table(tableName);
+        if (table == null || table.primaryKeyField() == null) {
+            throw new IllegalArgumentException("Primary key not found for table " + tableName);
+        }
+        return table.primaryKeyField();
+    }
+
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
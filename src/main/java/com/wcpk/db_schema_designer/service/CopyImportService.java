@@ -0,0 +1,219 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.ImportRequest;
+import com.wcpk.db_schema_designer.dto.ImportResult;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Loads CSV/TSV uploads with {@code COPY ... FROM STDIN}. The upload is read in
+ * fixed-size chunks and written to the server as it arrives, so a slow database
+ * slows the reader down instead of buffering the file. Every commit interval the
+ * running COPY is ended on a row boundary and committed. Import ids follow the
+ * same rules as execution ids: a client that wants to poll progress asks
+ * {@link ExecutionRegistry#issueId()} for one first, so two imports never share
+ * an id.
+ */
+@Service
+@RequiredArgsConstructor
+public class CopyImportService {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final TargetBulkhead targetBulkhead;
+    private final ExecutionRegistry executionRegistry;
+
+    @Value("${target-db.import.default-commit-interval:100000}")
+    private int defaultCommitInterval;
+
+    private final Map<String, ImportResult> running = new ConcurrentHashMap<>();
+
+    public ImportResult getProgress(String importId) {
+        ImportResult progress = running.get(importId);
+        if (progress == null) {
+            return null;
+        }
+        // the import keeps updating the live object under its lock; readers get a consistent copy
+        synchronized (progress) {
+            ImportResult snapshot = new ImportResult();
+            snapshot.setImportId(progress.getImportId());
+            snapshot.setStatus(progress.getStatus());
+            snapshot.setMessage(progress.getMessage());
+            snapshot.setRowsSent(progress.getRowsSent());
+            snapshot.setRowsCommitted(progress.getRowsCommitted());
+            snapshot.setBatchesCommitted(progress.getBatchesCommitted());
+            return snapshot;
+        }
+    }
+
+    public ImportResult importStream(ImportRequest request, InputStream in) {
+        request.setExecutionId(executionRegistry.resolveId(request.getExecutionId()));
+        request.setImportId(executionRegistry.resolveId(request.getImportId()));
+        return targetBulkhead.call(request.getDatabaseConnectionRequest(), () -> doImportStream(request, in));
+    }
+
+    private ImportResult doImportStream(ImportRequest request, InputStream in) {
+        ImportResult progress = new ImportResult();
+        progress.setImportId(request.getImportId());
+        progress.setStatus("RUNNING");
+        running.put(progress.getImportId(), progress);
+
+        long started = System.currentTimeMillis();
+        try {
+            String format = request.getFormat() == null ? "CSV" : request.getFormat().trim().toUpperCase();
+            String copySql = buildCopySql(request, format);
+
+            try (Connection conn = dataSourceRegistry.getConnection(request.getDatabaseConnectionRequest());
+                 ExecutionRegistry.Execution<Statement> execution = executionRegistry.registerCopy(
+                         request.getExecutionId(), conn, request.getTimeoutSeconds())) {
+                conn.setAutoCommit(false);
+                try {
+                    CopyManager copyManager = execution.statement().getConnection().unwrap(PGConnection.class).getCopyAPI();
+                    if ("BINARY".equals(format)) {
+                        long rows = copyManager.copyIn(copySql, in, BUFFER_SIZE);
+                        conn.commit();
+                        synchronized (progress) {
+                            progress.setRowsSent(rows);
+                            progress.setRowsCommitted(rows);
+                            progress.setBatchesCommitted(1);
+                        }
+                    } else {
+                        copyInBatches(conn, copyManager, copySql, in, request, "CSV".equals(format), progress);
+                    }
+                    synchronized (progress) {
+                        progress.setStatus("SUCCESS");
+                        progress.setMessage("Imported " + progress.getRowsCommitted() + " rows");
+                    }
+                } catch (SQLException | IOException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                }
+            }
+        } catch (SQLException | IOException | IllegalArgumentException e) {
+            synchronized (progress) {
+                progress.setStatus("ERROR");
+                progress.setMessage("Import failed after " + progress.getRowsCommitted() + " committed rows: " + e.getMessage());
+            }
+        } finally {
+            running.remove(progress.getImportId());
+            synchronized (progress) {
+                progress.setElapsedMs(System.currentTimeMillis() - started);
+                progress.setRowsPerSecond(progress.getElapsedMs() == 0
+                        ? progress.getRowsCommitted()
+                        : progress.getRowsCommitted() * 1000 / progress.getElapsedMs());
+            }
+        }
+        return progress;
+    }
+
+    private void copyInBatches(Connection conn, CopyManager copyManager, String copySql, InputStream in,
+                               ImportRequest request, boolean csv, ImportResult progress)
+            throws SQLException, IOException {
+        int commitInterval = request.getCommitInterval() == null || request.getCommitInterval() <= 0
+                ? defaultCommitInterval
+                : request.getCommitInterval();
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        CopyRowScanner scanner = new CopyRowScanner(csv, request.isHeader());
+        long rowsSent = 0;
+        long rowsInBatch = 0;
+        CopyIn copy = null;
+
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                // rows are written from start on; the scan resumes after the last row end
+                int start = 0;
+                int next = 0;
+                int end;
+                while ((end = scanner.nextRowEnd(buffer, next, read)) >= 0) {
+                    next = end + 1;
+                    if (scanner.wasHeader()) {
+                        start = next;
+                        continue;
+                    }
+                    rowsSent++;
+                    if (++rowsInBatch >= commitInterval) {
+                        if (copy == null) copy = copyManager.copyIn(copySql);
+                        copy.writeToCopy(buffer, start, next - start);
+                        start = next;
+                        commitBatch(conn, copy, progress, rowsSent);
+                        copy = null;
+                        rowsInBatch = 0;
+                    }
+                }
+
+                if (read > start && !scanner.inHeader()) {
+                    if (copy == null) copy = copyManager.copyIn(copySql);
+                    copy.writeToCopy(buffer, start, read - start);
+                }
+                setRowsSent(progress, rowsSent);
+            }
+
+            if (scanner.hasPendingRow()) {
+                setRowsSent(progress, ++rowsSent);
+                copy.writeToCopy(new byte[]{'\n'}, 0, 1);
+            }
+            if (copy != null) {
+                commitBatch(conn, copy, progress, rowsSent);
+            }
+        } catch (SQLException | IOException e) {
+            if (copy != null && copy.isActive()) {
+                copy.cancelCopy();
+            }
+            throw e;
+        }
+    }
+
+    private void commitBatch(Connection conn, CopyIn copy, ImportResult progress, long rowsSent) throws SQLException {
+        long rows = copy.endCopy();
+        conn.commit();
+        synchronized (progress) {
+            progress.setRowsSent(rowsSent);
+            progress.setRowsCommitted(progress.getRowsCommitted() + rows);
+            progress.setBatchesCommitted(progress.getBatchesCommitted() + 1);
+        }
+    }
+
+    private static void setRowsSent(ImportResult progress, long rowsSent) {
+        synchronized (progress) {
+            progress.setRowsSent(rowsSent);
+        }
+    }
+
+    private String buildCopySql(ImportRequest request, String format) {
+        StringBuilder sql = new StringBuilder("COPY ")
+                .append(SqlIdentifiers.qualified(request.getSchemaName(), request.getTableName()));
+
+        if (request.getColumns() != null && !request.getColumns().isEmpty()) {
+            sql.append(" (")
+                    .append(request.getColumns().stream().map(SqlIdentifiers::quote).collect(Collectors.joining(", ")))
+                    .append(")");
+        }
+
+        sql.append(" FROM STDIN WITH (FORMAT ");
+        switch (format) {
+            case "CSV" -> sql.append("csv");
+            case "TSV" -> sql.append("text");
+            case "BINARY" -> sql.append("binary");
+            default -> throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        return sql.append(")").toString();
+    }
+}
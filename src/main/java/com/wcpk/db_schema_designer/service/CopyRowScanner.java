@@ -0,0 +1,69 @@
+package com.wcpk.db_schema_designer.service;
+
+/**
+ * Finds row boundaries in CSV or text-format COPY data that arrives in chunks
+ * of arbitrary size. A newline ends a row unless it is inside a quoted CSV
+ * field or, in text format, escaped by a backslash. State carries over between
+ * chunks, so a row may span any number of reads.
+ */
+final class CopyRowScanner {
+
+    private final boolean csv;
+    private boolean inQuotes;
+    private boolean escaped;
+    private boolean inHeader;
+    private boolean headerEnded;
+    private boolean pendingRow;
+
+    CopyRowScanner(boolean csv, boolean header) {
+        this.csv = csv;
+        this.inHeader = header;
+    }
+
+    /**
+     * Returns the index of the newline ending the next row in
+     * {@code buffer[from, to)}, or -1 if the range ends inside a row.
+     */
+    int nextRowEnd(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (csv) {
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                }
+            } else if (escaped) {
+                escaped = false;
+                pendingRow = pendingRow || !inHeader;
+                continue;
+            } else if (b == '\\') {
+                escaped = true;
+            }
+
+            if (b != '\n' || inQuotes) {
+                pendingRow = pendingRow || !inHeader;
+                continue;
+            }
+
+            headerEnded = inHeader;
+            inHeader = false;
+            pendingRow = false;
+            return i;
+        }
+        return -1;
+    }
+
+    /** Whether the row returned by the last {@link #nextRowEnd} call was the header line. */
+    boolean wasHeader() {
+        return headerEnded;
+    }
+
+    /** Whether the header line has not been fully read yet. */
+    boolean inHeader() {
+        return inHeader;
+    }
+
+    /** Whether data has been read after the last row end, i.e. the input ends without a newline. */
+    boolean hasPendingRow() {
+        return pendingRow;
+    }
+}
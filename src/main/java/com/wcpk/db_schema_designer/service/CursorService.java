@@ -0,0 +1,240 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.CursorOpenRequest;
+import com.wcpk.db_schema_designer.dto.CursorPageResponse;
+import com.wcpk.db_schema_designer.dto.DatabaseConnectionRequest;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server-side cursors over SELECT results. Each open cursor keeps its pooled
+ * connection and transaction until it is exhausted, closed or expires, so the
+ * number of cursors per target is kept below the pool size and every cursor has
+ * a bounded idle time and lifetime. Opening and fetching go through the target's
+ * bulkhead, and each statement runs under the cursor id in the execution registry.
+ */
+@Service
+@RequiredArgsConstructor
+public class CursorService {
+
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final TargetBulkhead targetBulkhead;
+    private final ExecutionRegistry executionRegistry;
+
+    @Value("${target-db.cursor.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${target-db.cursor.max-page-size:5000}")
+    private int maxPageSize;
+
+    @Value("${target-db.cursor.max-open:20}")
+    private int maxOpenCursors;
+
+    @Value("${target-db.cursor.max-open-per-target:2}")
+    private int maxOpenPerTarget;
+
+    @Value("${target-db.cursor.idle-timeout-ms:60000}")
+    private long idleTimeoutMs;
+
+    @Value("${target-db.cursor.max-lifetime-ms:600000}")
+    private long maxLifetimeMs;
+
+    private final Map<String, CursorSession> sessions = new ConcurrentHashMap<>();
+    // open cursors in total and per target, reserved before a connection is taken; guarded by itself
+    private final Map<TargetDataSourceRegistry.TargetKey, Integer> openByTarget = new HashMap<>();
+    private int openCount;
+
+    public CursorPageResponse open(CursorOpenRequest request) {
+        return targetBulkhead.call(request.getDatabaseConnectionRequest(), () -> doOpen(request));
+    }
+
+    private CursorPageResponse doOpen(CursorOpenRequest request) {
+        TargetDataSourceRegistry.TargetKey target = TargetDataSourceRegistry.TargetKey.of(request.getDatabaseConnectionRequest());
+        String refusal = reserve(target);
+        if (refusal != null) {
+            return new CursorPageResponse("ERROR", refusal, null, null, 0, true);
+        }
+
+        String cursorId = UUID.randomUUID().toString();
+        String cursorName = "designer_cur_" + cursorId.replace("-", "");
+        String sql = SqlScriptReader.stripTrailingSemicolons(request.getSqlCode());
+
+        Connection conn;
+        try {
+            conn = dataSourceRegistry.getConnection(request.getDatabaseConnectionRequest());
+        } catch (SQLException e) {
+            unreserve(target);
+            return new CursorPageResponse("ERROR", "Connection error: " + e.getMessage(), null, null, 0, true);
+        }
+
+        CursorSession session = new CursorSession(cursorId, cursorName, request.getDatabaseConnectionRequest(),
+                target, request.getTimeoutSeconds(), conn);
+        try {
+            conn.setAutoCommit(false);
+            try (ExecutionRegistry.Execution<Statement> execution = executionRegistry.register(
+                    cursorId, conn.createStatement(), session.timeoutSeconds)) {
+                execution.statement().execute("DECLARE " + cursorName + " NO SCROLL CURSOR FOR " + sql);
+            }
+        } catch (SQLException e) {
+            release(session);
+            return new CursorPageResponse("ERROR", e.getMessage(), null, null, 0, true);
+        }
+
+        sessions.put(cursorId, session);
+        return fetch(session, request.getPageSize());
+    }
+
+    /**
+     * Fetches the next page. While it runs, the FETCH can be cancelled through
+     * {@link ExecutionRegistry#cancel} with the cursor id.
+     */
+    public CursorPageResponse fetch(String cursorId, Integer pageSize) {
+        CursorSession session = sessions.get(cursorId);
+        if (session == null) {
+            return new CursorPageResponse("NOT_FOUND", "Cursor not found or expired: " + cursorId, cursorId, null, 0, true);
+        }
+        return targetBulkhead.call(session.connectionRequest, () -> fetch(session, pageSize));
+    }
+
+    private CursorPageResponse fetch(CursorSession session, Integer pageSize) {
+        String cursorId = session.cursorId;
+        int rows = pageSize == null || pageSize <= 0 ? defaultPageSize : Math.min(pageSize, maxPageSize);
+
+        synchronized (session) {
+            if (session.closed) {
+                return new CursorPageResponse("NOT_FOUND", "Cursor not found or expired: " + cursorId, cursorId, null, 0, true);
+            }
+            session.lastAccess = System.currentTimeMillis();
+
+            try (ExecutionRegistry.Execution<Statement> execution = executionRegistry.register(
+                    cursorId, session.connection.createStatement(), session.timeoutSeconds);
+                 ResultSet rs = execution.statement().executeQuery("FETCH FORWARD " + rows + " FROM " + session.cursorName)) {
+                List<Map<String, Object>> page = readRows(rs);
+                session.rowsFetched += page.size();
+
+                boolean exhausted = page.size() < rows;
+                if (exhausted) {
+                    close(cursorId);
+                }
+                return new CursorPageResponse("SUCCESS", "Fetched " + page.size() + " rows", cursorId, page,
+                        session.rowsFetched, exhausted);
+            } catch (SQLException e) {
+                close(cursorId);
+                return new CursorPageResponse("ERROR", e.getMessage(), cursorId, null, session.rowsFetched, true);
+            }
+        }
+    }
+
+    public boolean close(String cursorId) {
+        CursorSession session = sessions.remove(cursorId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            release(session);
+        }
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${target-db.cursor.eviction-interval-ms:30000}")
+    public void closeExpiredCursors() {
+        long now = System.currentTimeMillis();
+        for (CursorSession session : sessions.values()) {
+            if (session.lastAccess < now - idleTimeoutMs || session.openedAt < now - maxLifetimeMs) {
+                close(session.cursorId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        new ArrayList<>(sessions.keySet()).forEach(this::close);
+    }
+
+    /** Returns why a cursor cannot be opened for {@code target}, or {@code null} after reserving a slot. */
+    private String reserve(TargetDataSourceRegistry.TargetKey target) {
+        // leave at least one pooled connection of the target to ordinary requests
+        int perTargetLimit = Math.max(1, Math.min(maxOpenPerTarget, dataSourceRegistry.getMaxPoolSize() - 1));
+        synchronized (openByTarget) {
+            if (openCount >= maxOpenCursors) {
+                return "Too many open cursors, close some and retry.";
+            }
+            int forTarget = openByTarget.getOrDefault(target, 0);
+            if (forTarget >= perTargetLimit) {
+                return "Too many open cursors for " + target + ", close some and retry.";
+            }
+            openByTarget.put(target, forTarget + 1);
+            openCount++;
+            return null;
+        }
+    }
+
+    private void unreserve(TargetDataSourceRegistry.TargetKey target) {
+        synchronized (openByTarget) {
+            openByTarget.computeIfPresent(target, (k, n) -> n > 1 ? n - 1 : null);
+            openCount--;
+        }
+    }
+
+    private void release(CursorSession session) {
+        if (session.closed) {
+            return;
+        }
+        session.closed = true;
+        unreserve(session.target);
+        try {
+            session.connection.rollback();
+            session.connection.setAutoCommit(true);
+        } catch (SQLException ignored) {
+        }
+        try {
+            session.connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private List<Map<String, Object>> readRows(ResultSet rs) throws SQLException {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        ResultSetMetaData meta = rs.getMetaData();
+        int colCount = meta.getColumnCount();
+
+        while (rs.next()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 1; i <= colCount; i++) {
+                row.put(meta.getColumnLabel(i), rs.getObject(i));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static class CursorSession {
+        private final String cursorId;
+        private final String cursorName;
+        private final DatabaseConnectionRequest connectionRequest;
+        private final TargetDataSourceRegistry.TargetKey target;
+        private final Integer timeoutSeconds;
+        private final Connection connection;
+        private final long openedAt = System.currentTimeMillis();
+        private volatile long lastAccess = openedAt;
+        private long rowsFetched;
+        private boolean closed;
+
+        private CursorSession(String cursorId, String cursorName, DatabaseConnectionRequest connectionRequest,
+                              TargetDataSourceRegistry.TargetKey target, Integer timeoutSeconds, Connection connection) {
+            this.cursorId = cursorId;
+            this.cursorName = cursorName;
+            this.connectionRequest = connectionRequest;
+            this.target = target;
+            this.timeoutSeconds = timeoutSeconds;
+            this.connection = connection;
+        }
+    }
+}
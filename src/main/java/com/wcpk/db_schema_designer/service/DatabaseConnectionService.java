@@ -1,15 +1,14 @@
 package com.wcpk.db_schema_designer.service;
 
 import com.wcpk.db_schema_designer.dto.*;
-import com.wcpk.db_schema_designer.model.Column;
 import com.wcpk.db_schema_designer.model.Table;
 import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.postgresql.PGStatement;
 import org.springframework.stereotype.Service;
-import org.springframework.dao.DataAccessException;
 
-import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
 import java.sql.*;
 import java.util.*;
 
@@ -17,55 +16,79 @@ import java.util.*;
 @RequiredArgsConstructor
 public class DatabaseConnectionService {
 
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final CatalogIntrospector catalogIntrospector;
+    private final IntrospectionPipeline introspectionPipeline;
+    private final MetadataCache metadataCache;
+    private final TargetBulkhead targetBulkhead;
+    private final ExecutionRegistry executionRegistry;
+    private final ResultBudget resultBudget;
+    private final SqlScriptExecutor sqlScriptExecutor;
+
     public String uploadSqlCodeToDatabase(DatabaseUploadRequest databaseUploadRequest) {
-        try {
-            DataSource dataSource = createDataSource(databaseUploadRequest.getDatabaseConnectionRequest());
-            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        return uploadSqlScript(databaseUploadRequest, new StringReader(databaseUploadRequest.getSqlCode()));
+    }
 
-            jdbcTemplate.execute(databaseUploadRequest.getSqlCode());
+    public String uploadSqlScript(DatabaseUploadRequest databaseUploadRequest, Reader script) {
+        return targetBulkhead.call(databaseUploadRequest.getDatabaseConnectionRequest(),
+                () -> doUploadSqlScript(databaseUploadRequest, script));
+    }
 
-            return "SQL script executed successfully!";
-        } catch (DataAccessException dae) {
-            Throwable rootCause = dae.getRootCause();
-            if (rootCause instanceof SQLException) {
-                SQLException sqlEx = (SQLException) rootCause;
-                return "Database error: " + sqlEx.getMessage();
-            } else {
-                return "Database access error: " + dae.getMessage();
+    /**
+     * Runs the script in one transaction, or with {@code commitPerBatch} in
+     * autocommit, so a long dump does not hold one transaction open and may use
+     * statements that refuse to run inside a transaction block.
+     */
+    private String doUploadSqlScript(DatabaseUploadRequest databaseUploadRequest, Reader script) {
+        String executionId = executionRegistry.resolveId(databaseUploadRequest.getExecutionId());
+        boolean atomic = !databaseUploadRequest.isCommitPerBatch();
+        try (Connection connection = dataSourceRegistry.getConnection(databaseUploadRequest.getDatabaseConnectionRequest());
+             ExecutionRegistry.Execution<Statement> execution = executionRegistry.register(
+                     executionId, connection.createStatement(), databaseUploadRequest.getTimeoutSeconds())) {
+            connection.setAutoCommit(!atomic);
+            try {
+                ScriptProgress progress = sqlScriptExecutor.execute(executionId, connection, execution.statement(), script);
+                if (atomic) {
+                    connection.commit();
+                }
+                return "SQL script executed successfully! " + progress.getMessage() + ".";
+            } catch (SQLException | IOException | RuntimeException e) {
+                if (atomic) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
+        } catch (SQLException sqlEx) {
+            return "Database error: " + sqlEx.getMessage();
         } catch (Exception e) {
             return "Unexpected error: " + e.getMessage();
+        } finally {
+            metadataCache.invalidate(databaseUploadRequest.getDatabaseConnectionRequest());
         }
     }
 
     public List<Table> getTablesData(DatabaseConnectionRequest dcr)
     {
-        List<Table> tablesList = new ArrayList<>();
-        String url = "jdbc:postgresql://" + dcr.getHost() +":" + dcr.getPort() + "/" + dcr.getDatabaseName();
-        try {
-            Connection connection = DriverManager.getConnection(url,dcr.getUsername(),dcr.getPassword());
-            DatabaseMetaData metaData = connection.getMetaData();
-            ResultSet tables = metaData.getTables(null,null,"%",new String[]{"TABLE"});
-
-            while (tables.next())
-            {
-                String tableName = tables.getString("TABLE_NAME");
-                Table table = new Table(tableName);
-                ResultSet columns = metaData.getColumns(null, null, tableName, "%");
-
-                while (columns.next())
-                {
-                    String columnName = columns.getString("COLUMN_NAME");
-                    String dataType = columns.getString("TYPE_NAME");
-                    Column column = new Column(columnName, dataType);
-                    table.addColumn(column);
-                }
+        return targetBulkhead.call(dcr, () -> loadTablesData(dcr));
+    }
 
-                columns.close();
-                tablesList.add(table);
+    private List<Table> loadTablesData(DatabaseConnectionRequest dcr)
+    {
+        try {
+            String fingerprint;
+            try (Connection connection = dataSourceRegistry.getConnection(dcr)) {
+                fingerprint = catalogIntrospector.tablesFingerprint(connection);
+            }
+            List<Table> cached = metadataCache.get(dcr, MetadataCache.TABLES, fingerprint);
+            if (cached != null) {
+                return cached;
             }
-            tables.close();
-            return tablesList;
+
+            List<Table> tables = introspectionPipeline.introspectTables(dcr);
+            metadataCache.put(dcr, MetadataCache.TABLES, fingerprint, tables, estimateTablesBytes(tables));
+            return tables;
         }
         catch (SQLException e) {
             throw new RuntimeException(e);
@@ -73,121 +96,76 @@ public class DatabaseConnectionService {
     }
 
     public List<RoutineInfo> getAllRoutinesWithParams(DatabaseConnectionRequest dcr) {
-        String url = "jdbc:postgresql://" + dcr.getHost() + ":" + dcr.getPort() + "/" + dcr.getDatabaseName();
-        List<RoutineInfo> routines = new ArrayList<>();
-
-        String routinesSql = "SELECT routine_name, routine_type, data_type, specific_name " +
-                "FROM information_schema.routines " +
-                "WHERE specific_schema = ?";
-
-        String paramsSql = "SELECT specific_name, parameter_name, data_type, parameter_mode, ordinal_position " +
-                "FROM information_schema.parameters " +
-                "WHERE specific_schema = ?";
-
-        try (Connection conn = DriverManager.getConnection(url, dcr.getUsername(), dcr.getPassword());
-             PreparedStatement routineStmt = conn.prepareStatement(routinesSql);
-             PreparedStatement paramsStmt = conn.prepareStatement(paramsSql)) {
-
-            routineStmt.setString(1, "public");
-            paramsStmt.setString(1, "public");
-
-            Map<String, List<ParameterInfo>> paramMap = new HashMap<>();
-
-            try (ResultSet prs = paramsStmt.executeQuery()) {
-                while (prs.next()) {
-                    String specificName = prs.getString("specific_name");
-                    String paramName = prs.getString("parameter_name");
-                    String dataType = prs.getString("data_type");
-                    String mode = prs.getString("parameter_mode");
-                    int position = prs.getInt("ordinal_position");
-
-                    if (paramName == null) continue;
-
-                    ParameterInfo param = new ParameterInfo();
-                    param.setName(paramName);
-                    param.setDataType(dataType);
-                    param.setMode(mode);
-                    param.setPosition(position);
+        return targetBulkhead.call(dcr, () -> loadAllRoutinesWithParams(dcr));
+    }
 
-                    paramMap.computeIfAbsent(specificName, k -> new ArrayList<>()).add(param);
-                }
+    private List<RoutineInfo> loadAllRoutinesWithParams(DatabaseConnectionRequest dcr) {
+        try {
+            String fingerprint;
+            try (Connection conn = dataSourceRegistry.getConnection(dcr)) {
+                fingerprint = catalogIntrospector.routinesFingerprint(conn);
             }
-
-            try (ResultSet rs = routineStmt.executeQuery()) {
-                while (rs.next()) {
-                    String routineName = rs.getString("routine_name");
-                    String routineType = rs.getString("routine_type");
-                    String returnType = rs.getString("data_type");
-                    String specificName = rs.getString("specific_name");
-
-                    RoutineInfo info = new RoutineInfo();
-                    info.setName(routineName);
-                    info.setType(routineType);
-                    info.setReturnType("FUNCTION".equalsIgnoreCase(routineType) ? returnType : null);
-                    info.setParameters(paramMap.getOrDefault(specificName, new ArrayList<>()));
-
-                    routines.add(info);
-                }
+            List<RoutineInfo> cached = metadataCache.get(dcr, MetadataCache.ROUTINES, fingerprint);
+            if (cached != null) {
+                return cached;
             }
 
+            List<RoutineInfo> routines = introspectionPipeline.introspectRoutines(dcr);
+            metadataCache.put(dcr, MetadataCache.ROUTINES, fingerprint, routines, estimateRoutinesBytes(routines));
+            return routines;
         } catch (SQLException e) {
             throw new RuntimeException("Error retrieving routines: " + e.getMessage(), e);
         }
-
-        return routines;
     }
 
 
     public ExecuteCodeResponse executeCode(ExecuteCodeRequest request) {
+        return executeCode(request, ResultLayout.MAPS);
+    }
+
+    public ExecuteCodeResponse executeCode(ExecuteCodeRequest request, ResultLayout layout) {
+        request.setExecutionId(executionRegistry.resolveId(request.getExecutionId()));
+        ResultBudget.Reservation reservation = resultBudget.reserve();
+        try {
+            ExecuteCodeResponse response = targetBulkhead.call(request.getDatabaseConnectionRequest(),
+                    () -> doExecuteCode(request, reservation, layout));
+            response.setExecutionId(request.getExecutionId());
+            return response;
+        } finally {
+            resultBudget.releaseAfterResponse(reservation);
+        }
+    }
+
+    private ExecuteCodeResponse doExecuteCode(ExecuteCodeRequest request, ResultBudget.Reservation reservation,
+                                              ResultLayout layout) {
         DatabaseConnectionRequest connReq = request.getDatabaseConnectionRequest();
         String sqlCode = request.getSqlCode();
         String codeType = request.getCodeType();
 
-        try (Connection conn = DriverManager.getConnection(
-                "jdbc:postgresql://" + connReq.getHost() + ":" + connReq.getPort() + "/" + connReq.getDatabaseName(),
-                connReq.getUsername(),
-                connReq.getPassword()
-        )) {
+        try (Connection conn = dataSourceRegistry.getConnection(connReq)) {
             conn.setAutoCommit(true);
 
-            try (Statement stmt = conn.createStatement()) {
+            try (ExecutionRegistry.Execution<Statement> execution = executionRegistry.register(
+                    request.getExecutionId(), conn.createStatement(), request.getTimeoutSeconds())) {
+                Statement stmt = execution.statement();
+                stmt.setMaxRows(resultBudget.getMaxRows() + 1);
 
                 if (codeType.toUpperCase().startsWith("QUERY_SELECT")) {
-                    try (ResultSet rs = stmt.executeQuery(sqlCode)) {
-                        List<Map<String, Object>> rows = new ArrayList<>();
-                        ResultSetMetaData meta = rs.getMetaData();
-                        int colCount = meta.getColumnCount();
-
-                        while (rs.next()) {
-                            Map<String, Object> row = new LinkedHashMap<>();
-                            for (int i = 1; i <= colCount; i++) {
-                                row.put(meta.getColumnLabel(i), rs.getObject(i));
-                            }
-                            rows.add(row);
+                    return inTransaction(conn, () -> {
+                        stmt.setFetchSize(resultBudget.getFetchSize());
+                        try (ResultSet rs = stmt.executeQuery(sqlCode)) {
+                            return toResultSetResponse(rs, reservation, layout, "SELECT executed successfully");
                         }
-
-                        return new ExecuteCodeResponse("SUCCESS", "SELECT executed successfully", rows, true, "RESULT_SET");
-                    }
+                    });
 
                 } else {
                     boolean hasResultSet = stmt.execute(sqlCode);
                     int updateCount = stmt.getUpdateCount();
+                    metadataCache.invalidate(connReq);
 
                     if (hasResultSet) {
                         try (ResultSet rs = stmt.getResultSet()) {
-                            List<Map<String, Object>> rows = new ArrayList<>();
-                            ResultSetMetaData meta = rs.getMetaData();
-                            int colCount = meta.getColumnCount();
-
-                            while (rs.next()) {
-                                Map<String, Object> row = new LinkedHashMap<>();
-                                for (int i = 1; i <= colCount; i++) {
-                                    row.put(meta.getColumnLabel(i), rs.getObject(i));
-                                }
-                                rows.add(row);
-                            }
-
-                            return new ExecuteCodeResponse("SUCCESS", "Code executed and returned data", rows, true, "RESULT_SET");
+                            return toResultSetResponse(rs, reservation, layout, "Code executed and returned data");
                         }
 
                     } else {
@@ -228,14 +206,157 @@ public class DatabaseConnectionService {
         }
     }
 
+    /**
+     * Runs a generated parameterized query as a named server-side prepared
+     * statement. The driver keeps it in its per-connection statement cache, so
+     * repeating the same query with other values skips parsing and planning.
+     */
+    public ExecuteCodeResponse executePrepared(PreparedQueryRequest request, ParameterizedQuery query,
+                                               ResultLayout layout) {
+        request.setExecutionId(executionRegistry.resolveId(request.getExecutionId()));
+        ResultBudget.Reservation reservation = resultBudget.reserve();
+        try {
+            ExecuteCodeResponse response = targetBulkhead.call(request.getDatabaseConnectionRequest(),
+                    () -> doExecutePrepared(request, query, reservation, layout));
+            response.setExecutionId(request.getExecutionId());
+            return response;
+        } finally {
+            resultBudget.releaseAfterResponse(reservation);
+        }
+    }
 
-    private DataSource createDataSource (DatabaseConnectionRequest dcr)
-    {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("org.postgresql.Driver");
-        dataSource.setUrl("jdbc:postgresql://" + dcr.getHost() + ":" + dcr.getPort() + "/" + dcr.getDatabaseName());
-        dataSource.setUsername(dcr.getUsername());
-        dataSource.setPassword(dcr.getPassword());
-        return dataSource;
+    private ExecuteCodeResponse doExecutePrepared(PreparedQueryRequest request, ParameterizedQuery query,
+                                                  ResultBudget.Reservation reservation, ResultLayout layout) {
+        DatabaseConnectionRequest connReq = request.getDatabaseConnectionRequest();
+
+        try (Connection conn = dataSourceRegistry.getConnection(connReq);
+             ExecutionRegistry.Execution<PreparedStatement> execution = executionRegistry.register(
+                     request.getExecutionId(), conn.prepareStatement(query.getSql()), request.getTimeoutSeconds())) {
+            PreparedStatement ps = execution.statement();
+            ps.unwrap(PGStatement.class).setPrepareThreshold(1);
+            ps.setMaxRows(resultBudget.getMaxRows() + 1);
+            QueryParameters.bind(ps, query.getParameters());
+
+            if ("SELECT".equalsIgnoreCase(request.getQuery().getType())) {
+                return inTransaction(conn, () -> {
+                    ps.setFetchSize(resultBudget.getFetchSize());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        return toResultSetResponse(rs, reservation, layout, "SELECT executed successfully");
+                    }
+                });
+            }
+
+            if (ps.execute()) {
+                try (ResultSet rs = ps.getResultSet()) {
+                    return toResultSetResponse(rs, reservation, layout, "SELECT executed successfully");
+                }
+            }
+
+            int updateCount = ps.getUpdateCount();
+            return switch (request.getQuery().getType().toUpperCase()) {
+                case "INSERT" -> new ExecuteCodeResponse("SUCCESS", "Rows inserted: " + updateCount, null, false, "INSERT_COUNT");
+                case "UPDATE" -> new ExecuteCodeResponse("SUCCESS", "Rows updated: " + updateCount, null, false, "UPDATE_COUNT");
+                case "DELETE" -> new ExecuteCodeResponse("SUCCESS", "Rows deleted: " + updateCount, null, false, "DELETE_COUNT");
+                default -> new ExecuteCodeResponse("SUCCESS", "Code executed successfully.", null, false, "DDL");
+            };
+        } catch (SQLException e) {
+            return new ExecuteCodeResponse("ERROR", e.getMessage(), null, false, "ERROR");
+        }
+    }
+
+    /**
+     * pgjdbc only fetches rows in chunks of the fetch size inside a transaction;
+     * in autocommit mode it buffers the whole result before the byte cap is
+     * checked. SELECTs therefore run in a transaction of their own that commits
+     * once the rows have been read, so functions with side effects, sequences
+     * and row locks behave as they would under autocommit.
+     */
+    private ExecuteCodeResponse inTransaction(Connection conn, ResultQuery query) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            ExecuteCodeResponse response = query.run();
+            conn.commit();
+            return response;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private interface ResultQuery {
+        ExecuteCodeResponse run() throws SQLException;
+    }
+
+    private ExecuteCodeResponse toResultSetResponse(ResultSet rs, ResultBudget.Reservation reservation,
+                                                    ResultLayout layout, String message) throws SQLException {
+        ExecuteCodeResponse response;
+        boolean truncated;
+        int rowCount;
+        long estimatedBytes;
+
+        if (layout == ResultLayout.MAPS) {
+            ResultBudget.MaterializedResult result = resultBudget.materialize(rs, reservation);
+            response = new ExecuteCodeResponse("SUCCESS", message, result.rows(), true, "RESULT_SET");
+            truncated = result.truncated();
+            rowCount = result.rows().size();
+            estimatedBytes = result.estimatedBytes();
+        } else {
+            ResultBudget.TabularResult result = resultBudget.materializeRows(rs, reservation);
+            response = new ExecuteCodeResponse("SUCCESS", message, null, true, "RESULT_SET");
+            response.setLayout(layout.name());
+            List<ResultColumn> columns = new ArrayList<>(result.columnNames().length);
+            for (int i = 0; i < result.columnNames().length; i++) {
+                columns.add(new ResultColumn(result.columnNames()[i], result.columnTypes()[i]));
+            }
+            response.setColumns(columns);
+            if (layout == ResultLayout.ROWS) {
+                response.setRows(result.rows());
+            } else {
+                response.setColumnData(toColumnMajor(result.rows(), columns.size()));
+            }
+            truncated = result.truncated();
+            rowCount = result.rows().size();
+            estimatedBytes = result.estimatedBytes();
+        }
+
+        if (truncated) {
+            response.setMessage(message + " (result truncated to " + rowCount + " rows)");
+        }
+        response.setTruncated(truncated);
+        response.setRowCount(rowCount);
+        response.setEstimatedBytes(estimatedBytes);
+        return response;
+    }
+
+    private List<Object[]> toColumnMajor(List<Object[]> rows, int columnCount) {
+        List<Object[]> columns = new ArrayList<>(columnCount);
+        for (int c = 0; c < columnCount; c++) {
+            Object[] values = new Object[rows.size()];
+            for (int r = 0; r < rows.size(); r++) {
+                values[r] = rows.get(r)[c];
+            }
+            columns.add(values);
+        }
+        return columns;
+    }
+
+    private long estimateTablesBytes(List<Table> tables) {
+        long bytes = 0;
+        for (Table table : tables) {
+            bytes += 256 + table.getColumns().size() * 192L
+                    + table.getForeignKeys().size() * 256L
+                    + table.getIndexes().size() * 320L;
+        }
+        return bytes;
+    }
+
+    private long estimateRoutinesBytes(List<RoutineInfo> routines) {
+        long bytes = 0;
+        for (RoutineInfo routine : routines) {
+            bytes += 192 + routine.getParameters().size() * 128L;
+        }
+        return bytes;
     }
 }
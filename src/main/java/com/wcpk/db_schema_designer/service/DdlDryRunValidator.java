@@ -0,0 +1,123 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.util.PSQLException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dry-runs a DDL script inside one transaction in a scratch schema. Every
+ * statement gets its own savepoint, so a failure is recorded and rolled back
+ * without aborting the rest of the script; at the end the whole transaction is
+ * rolled back and the schema is left as it was.
+ */
+@Component
+@RequiredArgsConstructor
+public class DdlDryRunValidator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns one diagnostic per failing statement, or an empty list when the
+     * whole script is valid.
+     */
+    public List<SchemaDiagnostic> validate(String script, String schema) {
+        return validate(null, script, schema);
+    }
+
+    /**
+     * Like {@link #validate(String, String)}, but first runs {@code setupScript}
+     * in the same transaction, e.g. to recreate the tables a migration alters.
+     * A failing setup statement is reported as a single {@code SETUP_ERROR}.
+     */
+    public List<SchemaDiagnostic> validate(String setupScript, String script, String schema) {
+        return jdbcTemplate.execute((ConnectionCallback<List<SchemaDiagnostic>>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement stmt = connection.createStatement()) {
+                // only the scratch schema, so unqualified names never resolve to, or land in, public
+                stmt.execute("SET LOCAL search_path TO " + schema + ", pg_catalog");
+                if (setupScript != null && !setupScript.isBlank()) {
+                    SchemaDiagnostic setupError = runSetup(stmt, setupScript);
+                    if (setupError != null) {
+                        return List.of(setupError);
+                    }
+                }
+                return runStatements(connection, stmt, script);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+    }
+
+    private SchemaDiagnostic runSetup(Statement stmt, String setupScript) throws SQLException, IOException {
+        SqlScriptReader reader = new SqlScriptReader(new StringReader(setupScript));
+        SqlScriptReader.ParsedStatement statement;
+        while ((statement = reader.next()) != null) {
+            try {
+                stmt.execute(statement.sql());
+            } catch (SQLException e) {
+                SchemaDiagnostic diagnostic = toDiagnostic(statement, e);
+                diagnostic.setCode("SETUP_ERROR");
+                diagnostic.setStatementIndex(null);
+                diagnostic.setMessage("Could not recreate the previous schema: " + diagnostic.getMessage());
+                return diagnostic;
+            }
+        }
+        return null;
+    }
+
+    private List<SchemaDiagnostic> runStatements(Connection connection, Statement stmt, String script)
+            throws SQLException, IOException {
+        List<SchemaDiagnostic> diagnostics = new ArrayList<>();
+        SqlScriptReader reader = new SqlScriptReader(new StringReader(script));
+        SqlScriptReader.ParsedStatement statement;
+
+        while ((statement = reader.next()) != null) {
+            Savepoint savepoint = connection.setSavepoint();
+            try {
+                stmt.execute(statement.sql());
+                connection.releaseSavepoint(savepoint);
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                diagnostics.add(toDiagnostic(statement, e));
+            }
+        }
+        return diagnostics;
+    }
+
+    private SchemaDiagnostic toDiagnostic(SqlScriptReader.ParsedStatement statement, SQLException e) {
+        SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+        diagnostic.setCode(e.getSQLState());
+        diagnostic.setStatementIndex(statement.index() + 1);
+        diagnostic.setStatement(statement.sql());
+        diagnostic.setLine(statement.line());
+        diagnostic.setMessage(e.getMessage());
+
+        if (e instanceof PSQLException psql && psql.getServerErrorMessage() != null) {
+            diagnostic.setMessage(psql.getServerErrorMessage().getMessage());
+            int position = psql.getServerErrorMessage().getPosition();
+            if (position > 0 && position <= statement.sql().length()) {
+                diagnostic.setPosition(position);
+                diagnostic.setLine(statement.line() + statement.sql().substring(0, position - 1).chars()
+                        .filter(c -> c == '\n').count());
+            }
+        }
+        return diagnostic;
+    }
+}
@@ -0,0 +1,163 @@
+package com.wcpk.db_schema_designer.service;
+
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks statements that are currently running against target databases so
+ * they can be cancelled by execution id, and applies the per-request deadline.
+ * Execution ids are always random UUIDs generated here: a client that wants to
+ * cancel or follow a request while it runs asks for an id first with
+ * {@link #issueId()} and passes it along, so ids cannot be chosen or guessed.
+ */
+@Component
+public class ExecutionRegistry {
+
+    @Value("${target-db.execution.default-timeout-seconds:300}")
+    private int defaultTimeoutSeconds;
+
+    @Value("${target-db.execution.max-timeout-seconds:3600}")
+    private int maxTimeoutSeconds;
+
+    @Value("${target-db.execution.issued-id-ttl-ms:600000}")
+    private long issuedIdTtlMs;
+
+    private final Map<String, Canceller> running = new ConcurrentHashMap<>();
+    private final Map<String, Long> issued = new ConcurrentHashMap<>();
+
+    /** A fresh id the next request may carry; it is valid once and expires if unused. */
+    public String issueId() {
+        String id = UUID.randomUUID().toString();
+        issued.put(id, System.currentTimeMillis());
+        return id;
+    }
+
+    /**
+     * Returns the id a request runs under: a new one when none is given,
+     * otherwise an id previously handed out by {@link #issueId()}.
+     *
+     * @throws IllegalArgumentException if {@code requestedId} was not issued here or was already used
+     */
+    public String resolveId(String requestedId) {
+        if (requestedId == null || requestedId.isBlank()) {
+            return UUID.randomUUID().toString();
+        }
+        if (issued.remove(requestedId) == null) {
+            throw new IllegalArgumentException("Unknown or already used execution id: " + requestedId);
+        }
+        return requestedId;
+    }
+
+    /**
+     * Registers {@code statement} under {@code executionId}; closing the returned
+     * execution unregisters and closes the statement. On failure the statement
+     * is closed before the exception is thrown.
+     */
+    public <S extends Statement> Execution<S> register(String executionId, S statement, Integer timeoutSeconds)
+            throws SQLException {
+        try {
+            statement.setQueryTimeout(resolveTimeout(timeoutSeconds));
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        return add(executionId, statement, statement::cancel, null);
+    }
+
+    /**
+     * Registers a {@code COPY} about to run on {@code conn}. COPY does not go
+     * through a {@link Statement}, so the deadline is applied as the session's
+     * {@code statement_timeout} until the execution is closed, and cancelling it
+     * interrupts whatever the connection is running. The execution must be closed
+     * while the connection is still usable, i.e. after any rollback.
+     */
+    public Execution<Statement> registerCopy(String executionId, Connection conn, Integer timeoutSeconds)
+            throws SQLException {
+        Statement statement = conn.createStatement();
+        try {
+            statement.execute("SET statement_timeout = " + resolveTimeout(timeoutSeconds) * 1000L);
+        } catch (SQLException e) {
+            statement.close();
+            throw e;
+        }
+        PGConnection pgConnection = conn.unwrap(PGConnection.class);
+        return add(executionId, statement, pgConnection::cancelQuery, "RESET statement_timeout");
+    }
+
+    private <S extends Statement> Execution<S> add(String executionId, S statement, Canceller canceller,
+                                                   String resetSql) throws SQLException {
+        if (running.putIfAbsent(executionId, canceller) != null) {
+            statement.close();
+            throw new SQLException("Execution id already in use: " + executionId);
+        }
+        return new Execution<>(executionId, statement, canceller, resetSql);
+    }
+
+    public boolean cancel(String executionId) {
+        Canceller canceller = running.get(executionId);
+        if (canceller == null) {
+            return false;
+        }
+        try {
+            canceller.cancel();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${target-db.execution.issued-id-cleanup-interval-ms:60000}")
+    public void removeExpiredIds() {
+        long cutoff = System.currentTimeMillis() - issuedIdTtlMs;
+        issued.values().removeIf(issuedAt -> issuedAt < cutoff);
+    }
+
+    private int resolveTimeout(Integer timeoutSeconds) {
+        if (timeoutSeconds == null || timeoutSeconds <= 0) {
+            return defaultTimeoutSeconds;
+        }
+        return Math.min(timeoutSeconds, maxTimeoutSeconds);
+    }
+
+    @FunctionalInterface
+    private interface Canceller {
+        void cancel() throws SQLException;
+    }
+
+    public class Execution<S extends Statement> implements AutoCloseable {
+        private final String executionId;
+        private final S statement;
+        private final Canceller canceller;
+        private final String resetSql;
+
+        private Execution(String executionId, S statement, Canceller canceller, String resetSql) {
+            this.executionId = executionId;
+            this.statement = statement;
+            this.canceller = canceller;
+            this.resetSql = resetSql;
+        }
+
+        public S statement() {
+            return statement;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            running.remove(executionId, canceller);
+            try (statement) {
+                if (resetSql != null) {
+                    statement.execute(resetSql);
+                }
+            }
+        }
+    }
+}
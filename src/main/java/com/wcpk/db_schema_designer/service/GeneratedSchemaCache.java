@@ -0,0 +1,173 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.GeneratedSchemaCacheStats;
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import com.wcpk.db_schema_designer.dto.SchemaValidationResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of generated DDL and its validation outcome, keyed by a hash of the
+ * design's canonical form. Editor-only ids do not change the key; the order of
+ * tables, columns and relationships does, since the DDL follows it.
+ * <p>
+ * Results are copied on the way in and out, so a caller that edits the
+ * response it was given cannot change what later callers see.
+ */
+@Component
+public class GeneratedSchemaCache {
+
+    @Value("${generator.cache.max-entries:500}")
+    private int maxEntries;
+
+    @Value("${generator.cache.max-bytes:33554432}")
+    private long maxBytes;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public SchemaValidationResult get(String key) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copyOf(entry.result);
+    }
+
+    public void put(String key, SchemaValidationResult result) {
+        long estimatedBytes = 128 + (result.getSql() == null ? 0 : result.getSql().length() * 2L)
+                + result.getDiagnostics().size() * 512L;
+        if (estimatedBytes > maxBytes) {
+            return;
+        }
+
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(copyOf(result), estimatedBytes));
+            if (previous != null) {
+                totalBytes -= previous.estimatedBytes;
+            }
+            totalBytes += estimatedBytes;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries || totalBytes > maxBytes) {
+                totalBytes -= eldest.next().estimatedBytes;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    public GeneratedSchemaCacheStats getStats() {
+        GeneratedSchemaCacheStats stats = new GeneratedSchemaCacheStats();
+        stats.setHits(hits.get());
+        stats.setMisses(misses.get());
+        stats.setEvictions(evictions.get());
+        long lookups = stats.getHits() + stats.getMisses();
+        stats.setHitRatio(lookups == 0 ? 0 : (double) stats.getHits() / lookups);
+        synchronized (entries) {
+            stats.setEntries(entries.size());
+            stats.setEstimatedBytes(totalBytes);
+        }
+        return stats;
+    }
+
+    /**
+     * SHA-256 over the canonical form of the design. Every string is length
+     * prefixed so that different designs cannot serialize to the same bytes.
+     */
+    public static String keyOf(SchemaRequest schemaRequest) {
+        List<String> tables = new ArrayList<>();
+        if (schemaRequest.getTables() != null) {
+            for (SchemaRequest.Table table : schemaRequest.getTables()) {
+                StringBuilder sb = new StringBuilder();
+                append(sb, table.getName());
+                if (table.getFields() != null) {
+                    for (SchemaRequest.Field field : table.getFields()) {
+                        append(sb, field.getName());
+                        append(sb, field.getType());
+                        sb.append(field.isPrimaryKey() ? 'P' : '-')
+                                .append(field.isUnique() ? 'U' : '-')
+                                .append(field.isNullable() ? 'N' : '-');
+                    }
+                }
+                tables.add(sb.toString());
+            }
+        }
+
+        List<String> relationships = new ArrayList<>();
+        if (schemaRequest.getRelationships() != null) {
+            for (SchemaRequest.Relationship rel : schemaRequest.getRelationships()) {
+                StringBuilder sb = new StringBuilder();
+                append(sb, rel.getType());
+                append(sb, rel.getSourceTableName());
+                append(sb, rel.getTargetTableName());
+                append(sb, rel.getSourceCardinality());
+                append(sb, rel.getTargetCardinality());
+                relationships.add(sb.toString());
+            }
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(("T" + tables.size() + ":").getBytes(StandardCharsets.UTF_8));
+            for (String table : tables) {
+                digest.update(lengthPrefixed(table));
+            }
+            digest.update(("R" + relationships.size() + ":").getBytes(StandardCharsets.UTF_8));
+            for (String rel : relationships) {
+                digest.update(lengthPrefixed(rel));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static SchemaValidationResult copyOf(SchemaValidationResult result) {
+        List<SchemaDiagnostic> diagnostics = new ArrayList<>(result.getDiagnostics().size());
+        for (SchemaDiagnostic diagnostic : result.getDiagnostics()) {
+            SchemaDiagnostic copy = new SchemaDiagnostic();
+            copy.setSeverity(diagnostic.getSeverity());
+            copy.setCode(diagnostic.getCode());
+            copy.setMessage(diagnostic.getMessage());
+            copy.setTable(diagnostic.getTable());
+            copy.setField(diagnostic.getField());
+            copy.setStatementIndex(diagnostic.getStatementIndex());
+            copy.setLine(diagnostic.getLine());
+            copy.setPosition(diagnostic.getPosition());
+            copy.setStatement(diagnostic.getStatement());
+            diagnostics.add(copy);
+        }
+        return new SchemaValidationResult(result.isValid(), result.getSql(), Collections.unmodifiableList(diagnostics));
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("~;");
+        } else {
+            sb.append(value.length()).append(':').append(value).append(';');
+        }
+    }
+
+    private static byte[] lengthPrefixed(String value) {
+        return (value.length() + ":" + value + ";").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private record Entry(SchemaValidationResult result, long estimatedBytes) {
+    }
+}
@@ -0,0 +1,185 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.DatabaseConnectionRequest;
+import com.wcpk.db_schema_designer.dto.ParameterInfo;
+import com.wcpk.db_schema_designer.dto.RoutineInfo;
+import com.wcpk.db_schema_designer.model.Table;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the independent catalog queries of {@link CatalogIntrospector} at the
+ * same time, each on a virtual thread with its own pooled connection, so latency
+ * follows the slowest query rather than the sum of all of them. The calling
+ * thread opens a read-only repeatable-read transaction, exports its snapshot with
+ * {@code pg_export_snapshot()} and runs one query itself; the other connections
+ * import that snapshot, so every result describes the same catalog state.
+ * <p>
+ * The caller holds one bulkhead permit for the target. Each extra connection
+ * needs a permit of its own; when none is free, the query runs on the calling
+ * thread's connection after the others, so a request never exceeds its share.
+ */
+@Component
+@RequiredArgsConstructor
+public class IntrospectionPipeline {
+
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final CatalogIntrospector catalogIntrospector;
+    private final TargetBulkhead targetBulkhead;
+
+    public record CatalogSnapshot(List<Table> tables, List<CatalogIntrospector.TableStats> stats) {
+    }
+
+    public List<Table> introspectTables(DatabaseConnectionRequest dcr) throws SQLException {
+        return inSnapshot(dcr, this::readCatalog);
+    }
+
+    /**
+     * Tables together with the size estimates of the tables in {@code schema},
+     * read from the same snapshot, for planning migrations against a live database.
+     */
+    public CatalogSnapshot introspectSnapshot(DatabaseConnectionRequest dcr, String schema) throws SQLException {
+        return inSnapshot(dcr, snapshot -> {
+            Future<List<CatalogIntrospector.TableStats>> stats =
+                    snapshot.submit(conn -> catalogIntrospector.introspectTableStats(conn, schema));
+            List<Table> tables = readCatalog(snapshot);
+            return new CatalogSnapshot(tables, join(stats));
+        });
+    }
+
+    public List<RoutineInfo> introspectRoutines(DatabaseConnectionRequest dcr) throws SQLException {
+        return inSnapshot(dcr, snapshot -> {
+            Future<Map<String, List<ParameterInfo>>> parameters = snapshot.submit(catalogIntrospector::loadRoutineParameters);
+            List<CatalogIntrospector.RoutineRow> routines = snapshot.run(catalogIntrospector::loadRoutines);
+            return catalogIntrospector.assembleRoutines(routines, join(parameters));
+        });
+    }
+
+    private List<Table> readCatalog(Snapshot snapshot) throws SQLException {
+        Future<List<CatalogIntrospector.ConstraintRow>> constraints = snapshot.submit(catalogIntrospector::loadConstraints);
+        Future<List<CatalogIntrospector.IndexRow>> indexes = snapshot.submit(catalogIntrospector::loadIndexes);
+        Map<Long, Table> tables = snapshot.run(catalogIntrospector::loadTables);
+        return catalogIntrospector.assemble(tables, join(constraints), join(indexes));
+    }
+
+    private <T> T inSnapshot(DatabaseConnectionRequest dcr, SnapshotQuery<T> query) throws SQLException {
+        try (Connection conn = dataSourceRegistry.getConnection(dcr)) {
+            int isolation = conn.getTransactionIsolation();
+            begin(conn);
+            try {
+                String snapshotId;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT pg_export_snapshot()")) {
+                    rs.next();
+                    snapshotId = rs.getString(1);
+                }
+                // the executor is closed, and every worker finished, before the
+                // exporting transaction ends and the snapshot becomes unusable
+                try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                    return query.run(new Snapshot(dcr, conn, snapshotId, executor));
+                }
+            } finally {
+                end(conn, isolation);
+            }
+        }
+    }
+
+    private static void begin(Connection conn) throws SQLException {
+        conn.setAutoCommit(false);
+        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        conn.setReadOnly(true);
+    }
+
+    private static void end(Connection conn, int isolation) throws SQLException {
+        conn.rollback();
+        conn.setReadOnly(false);
+        conn.setTransactionIsolation(isolation);
+        conn.setAutoCommit(true);
+    }
+
+    private static <T> T join(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Introspection interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException sqlEx) {
+                throw sqlEx;
+            }
+            throw new SQLException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /** The exported snapshot of one introspection, and where its queries may run. */
+    private final class Snapshot {
+        private final DatabaseConnectionRequest dcr;
+        private final Connection conn;
+        private final String id;
+        private final ExecutorService executor;
+
+        private Snapshot(DatabaseConnectionRequest dcr, Connection conn, String id, ExecutorService executor) {
+            this.dcr = dcr;
+            this.conn = conn;
+            this.id = id;
+            this.executor = executor;
+        }
+
+        /** Runs {@code query} on the exporting connection, on the calling thread. */
+        <T> T run(CatalogQuery<T> query) throws SQLException {
+            return query.run(conn);
+        }
+
+        /**
+         * Starts {@code query} on another connection that imports the snapshot,
+         * or runs it right away on the calling thread if the bulkhead has no
+         * free permit for an extra connection.
+         */
+        <T> Future<T> submit(CatalogQuery<T> query) {
+            TargetBulkhead.Permit permit = targetBulkhead.tryEnter(dcr);
+            if (permit == null) {
+                try {
+                    return CompletableFuture.completedFuture(run(query));
+                } catch (SQLException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            return executor.submit(() -> {
+                try (permit; Connection worker = dataSourceRegistry.getConnection(dcr)) {
+                    int isolation = worker.getTransactionIsolation();
+                    begin(worker);
+                    try {
+                        try (Statement stmt = worker.createStatement()) {
+                            stmt.execute("SET TRANSACTION SNAPSHOT '" + id.replace("'", "''") + "'");
+                        }
+                        return query.run(worker);
+                    } finally {
+                        end(worker, isolation);
+                    }
+                }
+            });
+        }
+    }
+
+    @FunctionalInterface
+    private interface CatalogQuery<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface SnapshotQuery<T> {
+        T run(Snapshot snapshot) throws SQLException;
+    }
+}
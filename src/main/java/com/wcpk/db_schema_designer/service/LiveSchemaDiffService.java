@@ -0,0 +1,160 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.LiveMigrationRequest;
+import com.wcpk.db_schema_designer.dto.LiveMigrationResponse;
+import com.wcpk.db_schema_designer.dto.MigrationStep;
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Compares a live database with a design and plans the migration between them.
+ * The catalog and the sizes of the schema's tables are read from one snapshot,
+ * with the independent queries run in parallel where the bulkhead has room (see
+ * {@link IntrospectionPipeline}). Every step of the plan is annotated with the
+ * lock it takes, whether it scans or rewrites the table, and an impact rating
+ * based on the table's estimated size.
+ */
+@Service
+@RequiredArgsConstructor
+public class LiveSchemaDiffService {
+
+    private final IntrospectionPipeline introspectionPipeline;
+    private final TargetBulkhead targetBulkhead;
+    private final SchemaStaticValidator schemaStaticValidator;
+    private final SchemaMigrationPlanner schemaMigrationPlanner;
+
+    @Value("${migration.large-table-rows:1000000}")
+    private long largeTableRows;
+
+    @Value("${migration.large-table-bytes:1073741824}")
+    private long largeTableBytes;
+
+    private static final Set<String> WRITE_BLOCKING_LOCKS =
+            Set.of("ACCESS EXCLUSIVE", "EXCLUSIVE", "SHARE ROW EXCLUSIVE", "SHARE");
+
+    public LiveMigrationResponse diff(LiveMigrationRequest request) {
+        LiveMigrationResponse response = new LiveMigrationResponse();
+
+        List<SchemaDiagnostic> diagnostics = schemaStaticValidator.validate(request.getDesign());
+        response.setDiagnostics(diagnostics);
+        if (diagnostics.stream().anyMatch(d -> "ERROR".equals(d.getSeverity()))) {
+            response.setStatus("ERROR");
+            response.setMessage("The design has errors");
+            return response;
+        }
+
+        try {
+            SchemaModel design = SchemaModel.compile(request.getDesign());
+            String schema = request.getSchema() == null ? "public" : request.getSchema();
+            IntrospectionPipeline.CatalogSnapshot snapshot = targetBulkhead.call(request.getDatabaseConnectionRequest(),
+                    () -> introspect(request, schema));
+            SchemaModel live = SchemaModel.fromCatalog(snapshot.tables(), schema);
+
+            SchemaMigrationPlanner.MigrationPlan plan = schemaMigrationPlanner.planOnline(live, design,
+                    request.isDropUnmatched());
+
+            Map<String, CatalogIntrospector.TableStats> stats = new HashMap<>();
+            for (CatalogIntrospector.TableStats s : snapshot.stats()) {
+                stats.put(SchemaModel.key(s.name()), s);
+            }
+
+            for (String warning : plan.warnings()) {
+                SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+                diagnostic.setSeverity("WARNING");
+                diagnostic.setCode("FOREIGN_KEY_NOT_RESTORED");
+                diagnostic.setMessage(warning);
+                diagnostics.add(diagnostic);
+            }
+
+            List<MigrationStep> steps = new ArrayList<>(plan.steps().size());
+            for (SchemaMigrationPlanner.Step step : plan.steps()) {
+                steps.add(estimate(steps.size() + 1, step,
+                        step.table() == null ? null : stats.get(SchemaModel.key(step.table()))));
+            }
+            response.setSteps(steps);
+            response.setSql(plan.sql());
+            response.setStatus("SUCCESS");
+            response.setMessage(steps.isEmpty() ? "Database already matches the design"
+                    : steps.size() + " statements needed");
+        } catch (IllegalArgumentException e) {
+            response.setStatus("ERROR");
+            response.setMessage(e.getMessage());
+        } catch (TargetOverloadedException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            response.setStatus("ERROR");
+            response.setMessage("Could not read the database schema: "
+                    + (e.getCause() != null ? e.getCause().getMessage() : e.getMessage()));
+        }
+        return response;
+    }
+
+    private IntrospectionPipeline.CatalogSnapshot introspect(LiveMigrationRequest request, String schema) {
+        try {
+            return introspectionPipeline.introspectSnapshot(request.getDatabaseConnectionRequest(), schema);
+        } catch (SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    MigrationStep estimate(int index, SchemaMigrationPlanner.Step step, CatalogIntrospector.TableStats stats) {
+        SchemaMigrationPlanner.Operation operation = step.operation();
+        SchemaMigrationPlanner.Cost cost = operation.getCost();
+
+        MigrationStep result = new MigrationStep();
+        result.setIndex(index);
+        result.setSql(step.sql());
+        result.setOperation(operation.name());
+        result.setTable(step.table());
+        result.setLockMode(operation.getLockMode());
+        result.setBlocksReads("ACCESS EXCLUSIVE".equals(operation.getLockMode()));
+        result.setBlocksWrites(WRITE_BLOCKING_LOCKS.contains(operation.getLockMode()));
+        result.setScansTable(cost == SchemaMigrationPlanner.Cost.SCAN || cost == SchemaMigrationPlanner.Cost.REWRITE);
+        result.setRewritesTable(cost == SchemaMigrationPlanner.Cost.REWRITE);
+        result.setTransactional(operation.isTransactional());
+
+        boolean large = false;
+        boolean empty = false;
+        if (stats != null) {
+            result.setEstimatedRows(stats.estimatedRows());
+            result.setEstimatedBytes(stats.totalBytes());
+            large = stats.estimatedRows() != null && stats.estimatedRows() >= largeTableRows
+                    || stats.totalBytes() >= largeTableBytes;
+            empty = stats.estimatedRows() != null && stats.estimatedRows() == 0;
+        } else if (step.table() != null) {
+            // not in the catalog: the table is created earlier in this migration
+            empty = true;
+        }
+
+        if (cost == SchemaMigrationPlanner.Cost.NONE || empty && cost != SchemaMigrationPlanner.Cost.METADATA) {
+            result.setImpact("NONE");
+        } else if (cost == SchemaMigrationPlanner.Cost.METADATA || !result.isBlocksWrites()) {
+            result.setImpact("LOW");
+        } else {
+            result.setImpact(large ? "HIGH" : "MEDIUM");
+        }
+
+        switch (operation) {
+            case ALTER_TYPE -> result.setNote("Rewrites the table and its indexes while reads and writes are blocked");
+            case ALTER_TYPE_IN_PLACE -> result.setNote("Binary-compatible type change; no rewrite");
+            case SET_NOT_NULL, ADD_KEY, ADD_FOREIGN_KEY -> result.setNote("Scans the table while holding the lock");
+            case ADD_REQUIRED_COLUMN -> {
+                if (!empty) result.setNote("Fails if the table has rows; add a default or backfill first");
+            }
+            case VALIDATE_CONSTRAINT -> result.setNote("Scans the table without blocking reads or writes");
+            case CREATE_INDEX_CONCURRENTLY -> result.setNote("Builds the index without blocking writes; must run outside a transaction");
+            case DROP_INDEX_CONCURRENTLY -> result.setNote("Must run outside a transaction");
+            default -> {
+                if (result.isBlocksReads()) {
+                    result.setNote("Catalog-only change; the lock is brief but waits for running transactions");
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,81 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.DatabaseConnectionRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of introspected metadata per target database. An entry is only
+ * served while the catalog fingerprint it was loaded under is still current.
+ */
+@Component
+public class MetadataCache {
+
+    public static final String TABLES = "tables";
+    public static final String ROUTINES = "routines";
+
+    @Value("${target-db.metadata-cache.max-entries:200}")
+    private int maxEntries;
+
+    @Value("${target-db.metadata-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private final Map<CacheKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(DatabaseConnectionRequest dcr, String kind, String fingerprint) {
+        synchronized (entries) {
+            Entry entry = entries.get(new CacheKey(TargetDataSourceRegistry.TargetKey.of(dcr), kind));
+            if (entry == null || !entry.fingerprint.equals(fingerprint)) {
+                return null;
+            }
+            return (T) entry.value;
+        }
+    }
+
+    public void put(DatabaseConnectionRequest dcr, String kind, String fingerprint, Object value, long estimatedBytes) {
+        if (estimatedBytes > maxBytes) {
+            return;
+        }
+        CacheKey key = new CacheKey(TargetDataSourceRegistry.TargetKey.of(dcr), kind);
+
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(fingerprint, value, estimatedBytes));
+            if (previous != null) {
+                totalBytes -= previous.estimatedBytes;
+            }
+            totalBytes += estimatedBytes;
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (entries.size() > maxEntries || totalBytes > maxBytes) {
+                totalBytes -= eldest.next().estimatedBytes;
+                eldest.remove();
+            }
+        }
+    }
+
+    public void invalidate(DatabaseConnectionRequest dcr) {
+        TargetDataSourceRegistry.TargetKey target = TargetDataSourceRegistry.TargetKey.of(dcr);
+        synchronized (entries) {
+            Iterator<Map.Entry<CacheKey, Entry>> it = entries.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<CacheKey, Entry> e = it.next();
+                if (e.getKey().target().equals(target)) {
+                    totalBytes -= e.getValue().estimatedBytes;
+                    it.remove();
+                }
+            }
+        }
+    }
+
+    private record CacheKey(TargetDataSourceRegistry.TargetKey target, String kind) {
+    }
+
+    private record Entry(String fingerprint, Object value, long estimatedBytes) {
+    }
+}
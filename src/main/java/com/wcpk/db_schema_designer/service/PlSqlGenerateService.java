@@ -1,12 +1,13 @@
 package com.wcpk.db_schema_designer.service;
 
 import com.wcpk.db_schema_designer.dto.PLSQLRequest;
+import com.wcpk.db_schema_designer.dto.ParameterizedQuery;
 import com.wcpk.db_schema_designer.dto.QueryRequest;
 import com.wcpk.db_schema_designer.dto.RoutineExecutionRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -16,13 +17,21 @@ public class PlSqlGenerateService {
 
     public String generateQueryCode (QueryRequest queryRequest)
     {
-        return switch (queryRequest.getType().toUpperCase()) {
-            case "SELECT" -> buildSelectQuery(queryRequest);
-            case "INSERT" -> buildInsertQuery(queryRequest);
-            case "DELETE" -> buildDeleteQuery(queryRequest);
-            case "UPDATE" -> buildUpdateQuery(queryRequest);
-            default -> throw new IllegalArgumentException("Unsupported query type: " + queryRequest);
-        };
+        return new SqlQueryPrinter(this::appendLiteral).print(SqlQuery.of(queryRequest));
+    }
+
+    /**
+     * Generates the same query as {@link #generateQueryCode} but with every user
+     * value replaced by a placeholder ({@code $n} or {@code ?}), so the SQL text
+     * stays stable across values and the server can reuse its plan.
+     */
+    public ParameterizedQuery generateParameterizedQuery(QueryRequest queryRequest)
+    {
+        SqlQuery.Statement statement = SqlQuery.of(queryRequest);
+        QueryParameters parameters = new QueryParameters(QueryParameters.Style.of(queryRequest.getParameterStyle()));
+        SqlQueryPrinter printer = new SqlQueryPrinter(
+                (sql, literal) -> sql.append(parameters.add(literal.column(), literal.columnType(), literal.value())));
+        return new ParameterizedQuery(printer.print(statement), parameters.values());
     }
 
     public String generateProcedureCode(PLSQLRequest procedureRequest) {
@@ -182,64 +191,25 @@ public class PlSqlGenerateService {
         selectInto.append("\n").append(indent).append("INTO ").append(step.getIntoTarget());
         selectInto.append("\n").append(indent).append("FROM ").append(step.getTableName());
 
+        SqlQueryPrinter printer = new SqlQueryPrinter(selectInto, this::appendLiteral);
         if (step.getWhereCondition() != null && !step.getWhereCondition().isEmpty()) {
             selectInto.append("\n").append(indent).append("WHERE ");
-            selectInto.append(buildWhereClause(step.getWhereCondition()));
+            printer.appendPredicates(SqlQuery.where(step.getWhereCondition()));
         }
 
         if (step.getOrderBy() != null && !step.getOrderBy().isEmpty()) {
             selectInto.append("\n").append(indent).append("ORDER BY ");
-            selectInto.append(step.getOrderBy().stream()
-                    .map(o -> o.getColumn() + " " + o.getDirection())
-                    .collect(Collectors.joining(", ")));
+            List<SqlQuery.OrderItem> orderBy = new ArrayList<>(step.getOrderBy().size());
+            for (QueryRequest.OrderBy order : step.getOrderBy()) {
+                orderBy.add(new SqlQuery.OrderItem(order.getColumn(), order.getDirection()));
+            }
+            printer.appendOrderBy(orderBy);
         }
 
         selectInto.append(";\n");
 
         return selectInto.toString();
     }
-    private String buildWhereClause(List<QueryRequest.WhereCondition> whereConditions) {
-        StringBuilder whereClause = new StringBuilder();
-
-        for (int i = 0; i < whereConditions.size(); i++) {
-            QueryRequest.WhereCondition cond = whereConditions.get(i);
-
-            if (i > 0) {
-                whereClause.append(" ").append(cond.getLogicalOperator()).append(" ");
-            }
-
-            whereClause.append(cond.getColumn()).append(" ").append(cond.getOperator());
-
-            if ("IS NULL".equalsIgnoreCase(cond.getOperator()) || "IS NOT NULL".equalsIgnoreCase(cond.getOperator())) {
-            } else if ("BETWEEN".equalsIgnoreCase(cond.getOperator())) {
-                if (shouldQuote(cond.getColumnType())) {
-                    whereClause.append(" '").append(escapeSingleQuotes(cond.getValue()))
-                            .append("' AND '").append(escapeSingleQuotes(cond.getValue2())).append("'");
-                } else {
-                    whereClause.append(" ").append(cond.getValue()).append(" AND ").append(cond.getValue2());
-                }
-            } else if ("IN".equalsIgnoreCase(cond.getOperator())) {
-                if (shouldQuote(cond.getColumnType())) {
-                    String quotedValues = Arrays.stream(cond.getValue().split(","))
-                            .map(String::trim)
-                            .map(v -> "'" + escapeSingleQuotes(v) + "'")
-                            .collect(Collectors.joining(", "));
-                    whereClause.append(" (").append(quotedValues).append(")");
-                } else {
-                    whereClause.append(" (").append(cond.getValue()).append(")");
-                }
-            } else {
-                if (shouldQuote(cond.getColumnType())) {
-                    whereClause.append(" '").append(escapeSingleQuotes(cond.getValue())).append("'");
-                } else {
-                    whereClause.append(" ").append(cond.getValue());
-                }
-            }
-        }
-
-        return whereClause.toString();
-    }
-
     private String buildIfElseStep(PLSQLRequest.Step step, int indentLevel) {
         StringBuilder ifElse = new StringBuilder();
         String indent = "    ".repeat(indentLevel);
@@ -340,215 +310,19 @@ public class PlSqlGenerateService {
     }
 
     public String buildSelectQuery(QueryRequest queryRequest) {
-        StringBuilder query = new StringBuilder();
-
-        if (queryRequest.getColumns() == null || queryRequest.getColumns().isEmpty()) {
-            query.append("SELECT *");
-        } else {
-            query.append("SELECT ");
-            query.append(String.join(", ", queryRequest.getColumns()));
-        }
-
-        query.append("\nFROM ").append(queryRequest.getTable());
-
-        if (queryRequest.getWhere() != null && !queryRequest.getWhere().isEmpty()) {
-            query.append("\nWHERE ");
-
-            for (int i = 0; i < queryRequest.getWhere().size(); i++) {
-                QueryRequest.WhereCondition cond = queryRequest.getWhere().get(i);
-
-                if (i > 0) {
-                    query.append(" ").append(cond.getLogicalOperator()).append(" ");
-                }
-
-                query.append(cond.getColumn()).append(" ").append(cond.getOperator());
-
-                if ("IS NULL".equals(cond.getOperator()) || "IS NOT NULL".equals(cond.getOperator())) {
-                } else if ("BETWEEN".equals(cond.getOperator())) {
-                    if (shouldQuote(cond.getColumnType())) {
-                        query.append(" '").append(cond.getValue()).append("' AND '").append(cond.getValue2()).append("'");
-                    } else {
-                        query.append(" ").append(cond.getValue()).append(" AND ").append(cond.getValue2());
-                    }
-                } else if ("IN".equals(cond.getOperator())) {
-                    if (shouldQuote(cond.getColumnType())) {
-                        String quotedValues = Arrays.stream(cond.getValue().split(","))
-                                .map(String::trim)
-                                .map(v -> "'" + v + "'")
-                                .collect(Collectors.joining(", "));
-                        query.append(" (").append(quotedValues).append(")");
-                    } else {
-                        query.append(" (").append(cond.getValue()).append(")");
-                    }
-                } else {
-                    if (shouldQuote(cond.getColumnType())) {
-                        query.append(" '").append(cond.getValue()).append("'");
-                    } else {
-                        query.append(" ").append(cond.getValue());
-                    }
-                }
-            }
-        }
-
-        if(queryRequest.getGroupBy() != null && !queryRequest.getGroupBy().isEmpty() )
-        {
-            query.append("\nGROUP BY ");
-            query.append(String.join(", ", queryRequest.getGroupBy()));
-        }
-
-        if (queryRequest.getOrderBy() != null && !queryRequest.getOrderBy().isEmpty()) {
-            query.append("\nORDER BY ");
-            query.append(queryRequest.getOrderBy().stream()
-                    .map(o -> o.getColumn() + " " + o.getDirection())
-                    .reduce((a, b) -> a + ", " + b).orElse(""));
-        }
-
-        if(queryRequest.getLimit() != null)
-        {
-            query.append("\nLIMIT ").append(queryRequest.getLimit());
-        }
-
-        return query.toString();
+        return new SqlQueryPrinter(this::appendLiteral).print(SqlQuery.select(queryRequest));
     }
 
-
     public String buildUpdateQuery(QueryRequest queryRequest) {
-        StringBuilder query = new StringBuilder();
-
-        query.append("UPDATE ").append(queryRequest.getTable()).append("\nSET ");
-
-        List<String> setClauses = queryRequest.getValues().stream()
-                .filter(QueryRequest.Value::isInclude)
-                .map(val -> {
-                    String valueStr = shouldQuote(val.getColumnType())
-                            ? "'" + escapeSingleQuotes(val.getValue()) + "'"
-                            : val.getValue();
-                    return val.getColumn() + " = " + valueStr;
-                })
-                .collect(Collectors.toList());
-
-        if (setClauses.isEmpty()) {
-            throw new IllegalArgumentException("No columns selected for update.");
-        }
-
-        query.append(String.join(", ", setClauses));
-
-        if (queryRequest.getWhere() != null && !queryRequest.getWhere().isEmpty()) {
-            query.append("\nWHERE ");
-            for (int i = 0; i < queryRequest.getWhere().size(); i++) {
-                QueryRequest.WhereCondition cond = queryRequest.getWhere().get(i);
-
-                if (i > 0) {
-                    query.append(" ").append(cond.getLogicalOperator()).append(" ");
-                }
-
-                query.append(cond.getColumn()).append(" ").append(cond.getOperator());
-
-                if ("IS NULL".equalsIgnoreCase(cond.getOperator()) || "IS NOT NULL".equalsIgnoreCase(cond.getOperator())) {
-                } else if ("BETWEEN".equalsIgnoreCase(cond.getOperator())) {
-                    if (shouldQuote(cond.getColumnType())) {
-                        query.append(" '").append(escapeSingleQuotes(cond.getValue()))
-                                .append("' AND '").append(escapeSingleQuotes(cond.getValue2())).append("'");
-                    } else {
-                        query.append(" ").append(cond.getValue()).append(" AND ").append(cond.getValue2());
-                    }
-                } else if ("IN".equalsIgnoreCase(cond.getOperator())) {
-                    if (shouldQuote(cond.getColumnType())) {
-                        String quotedValues = Arrays.stream(cond.getValue().split(","))
-                                .map(String::trim)
-                                .map(v -> "'" + escapeSingleQuotes(v) + "'")
-                                .collect(Collectors.joining(", "));
-                        query.append(" (").append(quotedValues).append(")");
-                    } else {
-                        query.append(" (").append(cond.getValue()).append(")");
-                    }
-                } else {
-                    if (shouldQuote(cond.getColumnType())) {
-                        query.append(" '").append(escapeSingleQuotes(cond.getValue())).append("'");
-                    } else {
-                        query.append(" ").append(cond.getValue());
-                    }
-                }
-            }
-        }
-
-        return query.toString();
+        return new SqlQueryPrinter(this::appendLiteral).print(SqlQuery.update(queryRequest));
     }
 
     public String buildInsertQuery(QueryRequest queryRequest) {
-        StringBuilder query = new StringBuilder();
-
-        query.append("INSERT INTO ")
-                .append(queryRequest.getTable())
-                .append(" (");
-
-        List<QueryRequest.Value> includedValues = queryRequest.getValues().stream()
-                .filter(v -> v.getValue() != null && !v.getValue().trim().isEmpty())
-                .toList();
-
-        String columnNames = includedValues.stream()
-                .map(QueryRequest.Value::getColumn)
-                .collect(Collectors.joining(", "));
-        query.append(columnNames);
-        query.append(")\nVALUES (");
-
-        String values = includedValues.stream()
-                .map(v -> shouldQuote(v.getColumnType())
-                        ? "'" + escapeSingleQuotes(v.getValue().trim()) + "'"
-                        : v.getValue().trim()
-                )
-                .collect(Collectors.joining(", "));
-        query.append(values);
-        query.append(");");
-
-        return query.toString();
+        return new SqlQueryPrinter(this::appendLiteral).print(SqlQuery.insert(queryRequest));
     }
 
     public String buildDeleteQuery(QueryRequest queryRequest) {
-        StringBuilder query = new StringBuilder();
-
-        query.append("DELETE FROM ").append(queryRequest.getTable());
-
-        if (queryRequest.getWhere() != null && !queryRequest.getWhere().isEmpty()) {
-            query.append("\nWHERE ");
-            for (int i = 0; i < queryRequest.getWhere().size(); i++) {
-                QueryRequest.WhereCondition cond = queryRequest.getWhere().get(i);
-
-                if (i > 0) {
-                    query.append(" ").append(cond.getLogicalOperator()).append(" ");
-                }
-
-                query.append(cond.getColumn()).append(" ").append(cond.getOperator());
-
-                if ("IS NULL".equalsIgnoreCase(cond.getOperator()) || "IS NOT NULL".equalsIgnoreCase(cond.getOperator())) {
-                } else if ("BETWEEN".equalsIgnoreCase(cond.getOperator())) {
-                    if (shouldQuote(cond.getColumnType())) {
-                        query.append(" '").append(escapeSingleQuotes(cond.getValue()))
-                                .append("' AND '").append(escapeSingleQuotes(cond.getValue2())).append("'");
-                    } else {
-                        query.append(" ").append(cond.getValue()).append(" AND ").append(cond.getValue2());
-                    }
-                } else if ("IN".equalsIgnoreCase(cond.getOperator())) {
-                    if (shouldQuote(cond.getColumnType())) {
-                        String quotedValues = Arrays.stream(cond.getValue().split(","))
-                                .map(String::trim)
-                                .map(v -> "'" + escapeSingleQuotes(v) + "'")
-                                .collect(Collectors.joining(", "));
-                        query.append(" (").append(quotedValues).append(")");
-                    } else {
-                        query.append(" (").append(cond.getValue()).append(")");
-                    }
-                } else {
-                    if (shouldQuote(cond.getColumnType())) {
-                        query.append(" '").append(escapeSingleQuotes(cond.getValue())).append("'");
-                    } else {
-                        query.append(" ").append(cond.getValue());
-                    }
-                }
-            }
-        }
-
-        return query.toString();
+        return new SqlQueryPrinter(this::appendLiteral).print(SqlQuery.delete(queryRequest));
     }
 
     public String generateFunctionCode(PLSQLRequest functionRequest) {
@@ -709,6 +483,25 @@ public class PlSqlGenerateService {
         }
     }
 
+    private void appendLiteral(StringBuilder sql, SqlQuery.Literal literal) {
+        String value = literal.value();
+        if (value == null) {
+            sql.append("NULL");
+            return;
+        }
+        if (!shouldQuote(literal.columnType())) {
+            sql.append(value);
+            return;
+        }
+        sql.append('\'');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\'') sql.append('\'');
+            sql.append(c);
+        }
+        sql.append('\'');
+    }
+
     private boolean shouldQuote(String columnType) {
         if (columnType == null) return true;
         return switch (columnType.toLowerCase()) {
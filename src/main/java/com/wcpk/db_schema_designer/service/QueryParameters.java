@@ -0,0 +1,122 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.BindValue;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Collects bind values while a query is generated and hands out the matching
+ * placeholders. Values are converted to Java types derived from the column type
+ * so the driver sends them with the right parameter type.
+ */
+final class QueryParameters {
+
+    enum Style {
+        DOLLAR,
+        QUESTION;
+
+        static Style of(String style) {
+            return "QUESTION".equalsIgnoreCase(style) || "?".equals(style) ? QUESTION : DOLLAR;
+        }
+    }
+
+    /** ISO or PostgreSQL style, e.g. {@code 2024-05-01 10:00:00.5+02}, {@code +0530}, {@code +05:30} or {@code Z}. */
+    private static final DateTimeFormatter TIMESTAMPTZ = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .appendPattern("['T'][' ']")
+            .append(DateTimeFormatter.ISO_LOCAL_TIME)
+            .appendPattern("[XXX][XX][X]")
+            .toFormatter();
+
+    private static final Pattern PRECISION = Pattern.compile("\\s*\\([^)]*\\)");
+
+    private static final Set<String> TEXT_TYPES = Set.of("text", "varchar", "character varying", "char", "character", "bpchar");
+
+    private final Style style;
+    private final List<BindValue> values = new ArrayList<>();
+
+    QueryParameters(Style style) {
+        this.style = style;
+    }
+
+    String add(String column, String columnType, String value) {
+        String type = normalize(columnType);
+        BindValue bind = new BindValue(values.size() + 1, column, type, convert(column, type, value));
+        values.add(bind);
+        return style == Style.DOLLAR ? "$" + bind.getIndex() : "?";
+    }
+
+    List<BindValue> values() {
+        return values;
+    }
+
+    static void bind(PreparedStatement ps, List<BindValue> values) throws SQLException {
+        for (BindValue bind : values) {
+            Object value = bind.getValue();
+            if (value == null) {
+                ps.setNull(bind.getIndex(), Types.NULL);
+            } else if (value instanceof String s && !TEXT_TYPES.contains(bind.getType())) {
+                // json, enums and other types without a Java mapping are inferred by the server
+                ps.setObject(bind.getIndex(), s, Types.OTHER);
+            } else {
+                ps.setObject(bind.getIndex(), value);
+            }
+        }
+    }
+
+    private static String normalize(String columnType) {
+        if (columnType == null) return "text";
+        // drop modifiers wherever they appear: varchar(20), timestamp(3) with time zone
+        return PRECISION.matcher(columnType.trim().toLowerCase()).replaceAll("");
+    }
+
+    private static Object convert(String column, String type, String value) {
+        if (value == null || (!TEXT_TYPES.contains(type) && "NULL".equalsIgnoreCase(value.trim()))) {
+            return null;
+        }
+        String v = value.trim();
+        try {
+            return switch (type) {
+                case "int2", "smallint" -> Short.parseShort(v);
+                case "int", "int4", "integer", "serial" -> Integer.parseInt(v);
+                case "int8", "bigint", "bigserial" -> Long.parseLong(v);
+                case "numeric", "decimal" -> new BigDecimal(v);
+                case "real", "float4" -> Float.parseFloat(v);
+                case "float8", "double precision" -> Double.parseDouble(v);
+                case "bool", "boolean" -> parseBoolean(v);
+                case "date" -> LocalDate.parse(v);
+                case "time" -> LocalTime.parse(v);
+                case "timestamp", "timestamp without time zone" -> LocalDateTime.parse(v.replace(' ', 'T'));
+                // without an offset the server applies its session time zone
+                case "timestamptz", "timestamp with time zone" ->
+                        TIMESTAMPTZ.parseBest(v, OffsetDateTime::from, LocalDateTime::from);
+                case "uuid" -> UUID.fromString(v);
+                default -> value;
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid value '" + value + "' for column " + column + " of type " + type);
+        }
+    }
+
+    private static Boolean parseBoolean(String v) {
+        return switch (v.toLowerCase()) {
+            case "true", "t", "yes", "y", "on", "1" -> true;
+            case "false", "f", "no", "n", "off", "0" -> false;
+            default -> throw new IllegalArgumentException(v);
+        };
+    }
+}
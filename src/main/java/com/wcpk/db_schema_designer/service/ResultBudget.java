@@ -0,0 +1,189 @@
+package com.wcpk.db_schema_designer.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds how much result data is materialized in the JVM. Each request is capped
+ * by rows and estimated bytes, and all requests together draw from one global
+ * byte budget, so a single large SELECT cannot exhaust the shared heap. Rows are
+ * counted as they are read, and a request's share stays reserved until its
+ * response has been written. A request that outgrows its own cap is truncated;
+ * one that cannot get more of the global budget in time fails with
+ * {@link TargetOverloadedException} rather than returning a partial result.
+ */
+@Component
+public class ResultBudget {
+
+    private static final int CHUNK_KB = 64;
+
+    @Value("${target-db.result.max-rows:50000}")
+    private int maxRows;
+
+    @Value("${target-db.result.max-bytes:33554432}")
+    private long maxBytes;
+
+    @Value("${target-db.result.global-max-bytes:268435456}")
+    private long globalMaxBytes;
+
+    @Value("${target-db.result.fetch-size:500}")
+    private int fetchSize;
+
+    @Value("${target-db.result.budget-wait-ms:5000}")
+    private long budgetWaitMs;
+
+    @Value("${target-db.bulkhead.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private Semaphore globalKilobytes;
+
+    @PostConstruct
+    void init() {
+        globalKilobytes = new Semaphore((int) Math.min(Integer.MAX_VALUE, globalMaxBytes / 1024));
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public Reservation reserve() {
+        return new Reservation();
+    }
+
+    /**
+     * Returns {@code reservation} to the global budget once the current request
+     * has completed, i.e. after the rows it holds have been serialized. Outside a
+     * web request it is released immediately.
+     */
+    public void releaseAfterResponse(Reservation reservation) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            reservation.close();
+            return;
+        }
+        attributes.registerDestructionCallback(Reservation.class.getName() + "@" + System.identityHashCode(reservation),
+                reservation::close, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    public MaterializedResult materialize(ResultSet rs, Reservation reservation) throws SQLException {
+        TabularResult table = readRows(rs, reservation, 48, 40);
+        List<Map<String, Object>> rows = new ArrayList<>(table.rows().size());
+        for (Object[] values : table.rows()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                row.put(table.columnNames()[i], values[i]);
+            }
+            rows.add(row);
+        }
+        return new MaterializedResult(rows, table.truncated(), table.estimatedBytes());
+    }
+
+    public TabularResult materializeRows(ResultSet rs, Reservation reservation) throws SQLException {
+        return readRows(rs, reservation, 16, 8);
+    }
+
+    private TabularResult readRows(ResultSet rs, Reservation reservation, long rowOverhead, long cellOverhead)
+            throws SQLException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int colCount = meta.getColumnCount();
+        String[] names = new String[colCount];
+        String[] types = new String[colCount];
+        for (int i = 0; i < colCount; i++) {
+            names[i] = meta.getColumnLabel(i + 1);
+            types[i] = meta.getColumnTypeName(i + 1);
+        }
+
+        List<Object[]> rows = new ArrayList<>();
+        long bytes = 0;
+        boolean truncated = false;
+
+        while (rs.next()) {
+            if (rows.size() >= maxRows) {
+                truncated = true;
+                break;
+            }
+
+            Object[] row = new Object[colCount];
+            long rowBytes = rowOverhead + cellOverhead * colCount;
+            for (int i = 0; i < colCount; i++) {
+                row[i] = rs.getObject(i + 1);
+                rowBytes += estimateSize(row[i]);
+            }
+
+            if (bytes + rowBytes > maxBytes) {
+                truncated = true;
+                break;
+            }
+            reservation.ensure(bytes + rowBytes);
+            bytes += rowBytes;
+            rows.add(row);
+        }
+
+        return new TabularResult(names, types, rows, truncated, bytes);
+    }
+
+    private long estimateSize(Object value) {
+        if (value == null) return 8;
+        if (value instanceof String s) return 40 + 2L * s.length();
+        if (value instanceof byte[] b) return 16 + b.length;
+        if (value instanceof Number || value instanceof Boolean) return 24;
+        return 64;
+    }
+
+    public record MaterializedResult(List<Map<String, Object>> rows, boolean truncated, long estimatedBytes) {
+    }
+
+    public record TabularResult(String[] columnNames, String[] columnTypes, List<Object[]> rows,
+                                boolean truncated, long estimatedBytes) {
+    }
+
+    /**
+     * Share of the global budget held by one request. Grows in fixed chunks while
+     * rows are read and is returned when the request finishes.
+     */
+    public class Reservation implements AutoCloseable {
+        private int reservedKilobytes;
+
+        /**
+         * Waits up to {@code budget-wait-ms} for each chunk other requests still
+         * hold, then gives up with {@link TargetOverloadedException}.
+         */
+        private void ensure(long bytes) {
+            while ((long) reservedKilobytes * 1024 < bytes) {
+                try {
+                    if (!globalKilobytes.tryAcquire(CHUNK_KB, budgetWaitMs, TimeUnit.MILLISECONDS)) {
+                        throw new TargetOverloadedException(
+                                "Result memory budget exhausted by concurrent queries, retry later.", retryAfterSeconds);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new TargetOverloadedException("Interrupted while waiting for result memory.", retryAfterSeconds);
+                }
+                reservedKilobytes += CHUNK_KB;
+            }
+        }
+
+        @Override
+        public void close() {
+            globalKilobytes.release(reservedKilobytes);
+            reservedKilobytes = 0;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.wcpk.db_schema_designer.service;
+
+/**
+ * Shape of result sets in {@code ExecuteCodeResponse}, chosen from the Accept header.
+ * MAPS is the original one-object-per-row form; ROWS and COLUMNS send the
+ * column names and types once followed by row-major or column-major arrays.
+ */
+public enum ResultLayout {
+    MAPS("application/json"),
+    ROWS("application/vnd.dbdesigner.rows+json"),
+    COLUMNS("application/vnd.dbdesigner.columns+json");
+
+    private final String mediaType;
+
+    ResultLayout(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static ResultLayout fromAccept(String accept) {
+        if (accept != null) {
+            if (accept.contains(ROWS.mediaType)) return ROWS;
+            if (accept.contains(COLUMNS.mediaType)) return COLUMNS;
+        }
+        return MAPS;
+    }
+}
@@ -0,0 +1,128 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wcpk.db_schema_designer.dto.ExecuteCodeRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.*;
+
+/**
+ * Writes query results to the client while they are read, using a server-side
+ * cursor so that neither the driver nor the service holds the whole result.
+ */
+@Service
+@RequiredArgsConstructor
+public class ResultStreamingService {
+
+    public enum StreamFormat {
+        NDJSON,
+        JSON_ARRAY
+    }
+
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final ObjectMapper objectMapper;
+    private final MetadataCache metadataCache;
+    private final ExecutionRegistry executionRegistry;
+
+    @Value("${target-db.stream.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${target-db.stream.flush-every-rows:1000}")
+    private int flushEveryRows;
+
+    /** {@code request} must carry an id already resolved by {@link ExecutionRegistry#resolveId}. */
+    public void streamCode(ExecuteCodeRequest request, StreamFormat format, OutputStream out) throws IOException {
+        JsonGenerator gen = objectMapper.createGenerator(out);
+        if (format == StreamFormat.NDJSON) {
+            gen.setRootValueSeparator(null);
+        }
+
+        try (Connection conn = dataSourceRegistry.getConnection(request.getDatabaseConnectionRequest())) {
+            conn.setAutoCommit(false);
+            try (ExecutionRegistry.Execution<Statement> execution = executionRegistry.register(request.getExecutionId(),
+                    conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY),
+                    request.getTimeoutSeconds())) {
+                Statement stmt = execution.statement();
+                stmt.setFetchSize(fetchSize);
+
+                if (stmt.execute(request.getSqlCode())) {
+                    try (ResultSet rs = stmt.getResultSet()) {
+                        writeRows(rs, format, gen);
+                    }
+                } else {
+                    metadataCache.invalidate(request.getDatabaseConnectionRequest());
+                    if (format == StreamFormat.JSON_ARRAY) {
+                        gen.writeStartArray();
+                        gen.writeEndArray();
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | IOException | RuntimeException e) {
+                // a client that goes away mid-stream must not leave half-run DML to be
+                // committed when autocommit is switched back on
+                rollback(conn, e);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            if (format == StreamFormat.NDJSON) {
+                gen.writeStartObject();
+                gen.writeStringField("error", e.getMessage());
+                gen.writeEndObject();
+                gen.writeRaw('\n');
+            } else {
+                throw new IOException("Streaming query failed: " + e.getMessage(), e);
+            }
+        }
+        gen.flush();
+    }
+
+    private static void rollback(Connection conn, Exception cause) {
+        try {
+            conn.rollback();
+        } catch (SQLException e) {
+            cause.addSuppressed(e);
+        }
+    }
+
+    private void writeRows(ResultSet rs, StreamFormat format, JsonGenerator gen)
+            throws SQLException, IOException {
+        ResultSetMetaData meta = rs.getMetaData();
+        int colCount = meta.getColumnCount();
+        String[] labels = new String[colCount];
+        for (int i = 0; i < colCount; i++) {
+            labels[i] = meta.getColumnLabel(i + 1);
+        }
+
+        if (format == StreamFormat.JSON_ARRAY) {
+            gen.writeStartArray();
+        }
+
+        long rowCount = 0;
+        while (rs.next()) {
+            gen.writeStartObject();
+            for (int i = 0; i < colCount; i++) {
+                gen.writeFieldName(labels[i]);
+                gen.writeObject(rs.getObject(i + 1));
+            }
+            gen.writeEndObject();
+
+            if (format == StreamFormat.NDJSON) {
+                gen.writeRaw('\n');
+            }
+            if (++rowCount % flushEveryRows == 0) {
+                gen.flush();
+            }
+        }
+
+        if (format == StreamFormat.JSON_ARRAY) {
+            gen.writeEndArray();
+        }
+    }
+}
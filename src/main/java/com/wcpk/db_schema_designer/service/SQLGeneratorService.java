@@ -1,100 +1,288 @@
 package com.wcpk.db_schema_designer.service;
 
+import com.wcpk.db_schema_designer.dto.GeneratedSchemaCacheStats;
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import com.wcpk.db_schema_designer.dto.SchemaMigrationRequest;
 import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import com.wcpk.db_schema_designer.dto.SchemaValidationResult;
 import lombok.RequiredArgsConstructor;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.Reader;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SQLGeneratorService {
 
-    private final JdbcTemplate jdbcTemplate;
+    private final ScratchSchemaPool scratchSchemaPool;
+    private final DdlDryRunValidator ddlDryRunValidator;
+    private final SchemaStaticValidator schemaStaticValidator;
+    private final GeneratedSchemaCache generatedSchemaCache;
+    private final SchemaMigrationPlanner schemaMigrationPlanner;
 
     public String generateAndExecuteSQL(SchemaRequest schemaRequest) {
+        SchemaValidationResult result = generateAndValidateSQL(schemaRequest);
+        if (result.isValid()) {
+            return result.getSql();
+        }
+        return "Error while executing script:\n" + result.getDiagnostics().stream()
+                .filter(d -> "ERROR".equals(d.getSeverity()))
+                .map(this::formatDiagnostic)
+                .collect(Collectors.joining("\n"));
+    }
+
+    public SchemaValidationResult generateAndValidateSQL(SchemaRequest schemaRequest) {
+        String cacheKey = GeneratedSchemaCache.keyOf(schemaRequest);
+        SchemaValidationResult cached = generatedSchemaCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        SchemaValidationResult result = doGenerateAndValidateSQL(schemaRequest);
+        // infrastructure failures (no scratch schema, database down) say nothing about the design
+        if (result.getDiagnostics().stream().noneMatch(d -> "VALIDATION_ERROR".equals(d.getCode()))) {
+            generatedSchemaCache.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    /**
+     * Generates the ALTER/CREATE/DROP statements that move a database built from
+     * {@code previous} to {@code current}, and dry-runs them against a scratch
+     * copy of the tables they touch.
+     */
+    public SchemaValidationResult generateMigration(SchemaMigrationRequest migrationRequest) {
+        List<SchemaDiagnostic> staticDiagnostics = schemaStaticValidator.validate(migrationRequest.getCurrent());
+        if (staticDiagnostics.stream().anyMatch(d -> "ERROR".equals(d.getSeverity()))) {
+            return new SchemaValidationResult(false, null, staticDiagnostics);
+        }
+
+        SchemaModel previous;
+        SchemaMigrationPlanner.MigrationPlan plan;
         try {
-            Map<String, SchemaRequest.Table> tableMap = new HashMap<>();
-            Map<String, SchemaRequest.Table> tableNameMap = new HashMap<>();
-            for (SchemaRequest.Table table : schemaRequest.getTables()) {
-                tableMap.put(table.getId(), table);
-                tableNameMap.put(table.getName(), table);
-            }
+            previous = SchemaModel.compile(migrationRequest.getPrevious());
+            plan = schemaMigrationPlanner.plan(previous, SchemaModel.compile(migrationRequest.getCurrent()));
+        } catch (Exception e) {
+            SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+            diagnostic.setCode("GENERATION_ERROR");
+            diagnostic.setMessage(e.getMessage());
+            return new SchemaValidationResult(false, null, List.of(diagnostic));
+        }
+        if (plan.statements().isEmpty()) {
+            return new SchemaValidationResult(true, "", staticDiagnostics);
+        }
 
-            StringBuilder sqlScript = new StringBuilder();
-            for (SchemaRequest.Table table : schemaRequest.getTables()) {
-                sqlScript.append(generateCreateTableSQL(table)).append("\n");
-            }
-            for (SchemaRequest.Relationship relationship : schemaRequest.getRelationships()) {
-                switch (relationship.getType()) {
-                    case "one-to-one":
-                        sqlScript.append(generateOneToOneSQL(relationship, tableNameMap)).append("\n");
-                        break;
-                    case "one-to-many":
-                        sqlScript.append(generateOneToManySQL(relationship, tableNameMap)).append("\n");
-                        break;
-                    case "many-to-many":
-                        sqlScript.append(generateManyToManySQL(relationship, tableNameMap)).append("\n");
-                        break;
-                    case "inheritance":
-                        sqlScript.append(generateInheritanceSQL(relationship, tableNameMap)).append("\n");
-                        break;
-                }
-            }
+        List<SchemaDiagnostic> diagnostics;
+        try (ScratchSchemaPool.Lease lease = scratchSchemaPool.lease()) {
+            diagnostics = ddlDryRunValidator.validate(schemaMigrationPlanner.setupScript(previous, plan),
+                    plan.sql(), lease.getSchema());
+            lease.markClean();
+        } catch (Exception e) {
+            SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+            diagnostic.setCode("VALIDATION_ERROR");
+            diagnostic.setMessage(e.getMessage());
+            diagnostics = List.of(diagnostic);
+        }
 
-             clearDatabase();
-             executeSQLScript(sqlScript.toString());
-             clearDatabase();
+        List<SchemaDiagnostic> all = new ArrayList<>(staticDiagnostics);
+        all.addAll(diagnostics);
+        return new SchemaValidationResult(diagnostics.isEmpty(), plan.sql(), all);
+    }
+
+    public GeneratedSchemaCacheStats getCacheStats() {
+        return generatedSchemaCache.getStats();
+    }
+
+    private SchemaValidationResult doGenerateAndValidateSQL(SchemaRequest schemaRequest) {
+        List<SchemaDiagnostic> staticDiagnostics = schemaStaticValidator.validate(schemaRequest);
+        if (staticDiagnostics.stream().anyMatch(d -> "ERROR".equals(d.getSeverity()))) {
+            return new SchemaValidationResult(false, null, staticDiagnostics);
+        }
+
+        String sqlScript;
+        try {
+            sqlScript = generateSQL(schemaRequest);
+        } catch (Exception e) {
+            SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+            diagnostic.setCode("GENERATION_ERROR");
+            diagnostic.setMessage(e.getMessage());
+            return new SchemaValidationResult(false, null, List.of(diagnostic));
+        }
 
-            return "" + sqlScript;
+        List<SchemaDiagnostic> diagnostics;
+        try (ScratchSchemaPool.Lease lease = scratchSchemaPool.lease()) {
+            diagnostics = ddlDryRunValidator.validate(sqlScript, lease.getSchema());
+            lease.markClean();
         } catch (Exception e) {
-            return "Error while executing script:\n" + e.getMessage();
+            SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+            diagnostic.setCode("VALIDATION_ERROR");
+            diagnostic.setMessage(e.getMessage());
+            diagnostics = List.of(diagnostic);
+        }
+
+        List<SchemaDiagnostic> all = new ArrayList<>(staticDiagnostics);
+        all.addAll(diagnostics);
+        return new SchemaValidationResult(diagnostics.isEmpty(), sqlScript, all);
+    }
+
+    /**
+     * Static checks only; unlike {@link #generateAndValidateSQL} nothing is run
+     * against a database.
+     */
+    public List<SchemaDiagnostic> checkDesign(SchemaRequest schemaRequest) {
+        return schemaStaticValidator.validate(schemaRequest);
+    }
+
+    /**
+     * Returns the generated script as a reader that renders one statement at a
+     * time on demand, so the text in memory stays bounded by the largest
+     * statement however large the design is. The design is compiled up front,
+     * so errors surface here rather than halfway through the script.
+     *
+     * @throws IllegalArgumentException if a relationship references a missing table or key
+     */
+    public Reader openSQLReader(SchemaRequest schemaRequest) {
+        CompiledSchema schema = CompiledSchema.compile(schemaRequest);
+        SchemaModel.compile(schema);
+        return new GeneratedScriptReader(schema);
+    }
+
+    /**
+     * Renders the script in the generator's own layout: the designer tables,
+     * then one unit per relationship in declaration order, each followed by a
+     * blank line. The deployer lays the same model out differently, see
+     * {@link SchemaDdl#script}.
+     */
+    private String generateSQL(SchemaRequest schemaRequest) {
+        CompiledSchema schema = CompiledSchema.compile(schemaRequest);
+        int units = schema.tables().size() + schema.relationships().size();
+        StringBuilder sqlScript = new StringBuilder(256 * units);
+        for (int i = 0; i < units; i++) {
+            appendUnit(sqlScript, schema, i);
+        }
+        return sqlScript.toString();
+    }
+
+    /**
+     * Appends the DDL of the i-th unit of the script, tables first and then
+     * relationships, each followed by a blank line. Unknown relationship types
+     * produce nothing.
+     */
+    private void appendUnit(StringBuilder sb, CompiledSchema schema, int i) {
+        if (i < schema.tables().size()) {
+            appendCreateTableSQL(sb, schema.tables().get(i));
+            sb.append("\n");
+            return;
+        }
+
+        SchemaRequest.Relationship relationship = schema.relationships().get(i - schema.tables().size());
+        switch (relationship.getType() == null ? "" : relationship.getType()) {
+            case "one-to-one":
+                appendOneToOneSQL(sb, relationship, schema);
+                sb.append("\n");
+                break;
+            case "one-to-many":
+                appendOneToManySQL(sb, relationship, schema);
+                sb.append("\n");
+                break;
+            case "many-to-many":
+                appendManyToManySQL(sb, relationship, schema);
+                sb.append("\n");
+                break;
+            case "inheritance":
+                appendInheritanceSQL(sb, relationship, schema);
+                sb.append("\n");
+                break;
+        }
+    }
+
+    /** Pulls units from the compiled schema one at a time as the consumer reads. */
+    private final class GeneratedScriptReader extends Reader {
+        private final CompiledSchema schema;
+        private final int units;
+        private final StringBuilder statement = new StringBuilder(1024);
+        private int next;
+        private int position;
+
+        private GeneratedScriptReader(CompiledSchema schema) {
+            this.schema = schema;
+            this.units = schema.tables().size() + schema.relationships().size();
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) {
+            if (len == 0) return 0;
+            while (position == statement.length()) {
+                if (next == units) return -1;
+                statement.setLength(0);
+                position = 0;
+                appendUnit(statement, schema, next++);
+            }
+            int n = Math.min(len, statement.length() - position);
+            statement.getChars(position, position + n, cbuf, off);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {
+            next = units;
+            statement.setLength(0);
+            position = 0;
         }
     }
 
-    private String generateCreateTableSQL(SchemaRequest.Table table) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("CREATE TABLE ").append(table.getName()).append(" (\n");
+    private String formatDiagnostic(SchemaDiagnostic diagnostic) {
+        if (diagnostic.getStatementIndex() == null) {
+            return diagnostic.getMessage();
+        }
+        return "Statement " + diagnostic.getStatementIndex() + " (line " + diagnostic.getLine()
+                + ", SQLSTATE " + diagnostic.getCode() + "): " + diagnostic.getMessage();
+    }
 
-        List<String> pkFields = new ArrayList<>();
+    private void appendCreateTableSQL(StringBuilder sb, CompiledSchema.CompiledTable table) {
+        sb.append("CREATE TABLE ").append(table.name()).append(" (\n");
 
-        for (int i = 0; i < table.getFields().size(); i++) {
-            SchemaRequest.Field field = table.getFields().get(i);
+        List<SchemaRequest.Field> fields = table.fields();
+        boolean hasPrimaryKey = !table.primaryKey().isEmpty();
+        for (int i = 0; i < fields.size(); i++) {
+            SchemaRequest.Field field = fields.get(i);
             sb.append("    ").append(field.getName()).append(" ").append(field.getType());
             if (!field.isNullable()) sb.append(" NOT NULL");
             if (field.isUnique()) sb.append(" UNIQUE");
 
-            if (i < table.getFields().size() - 1 || table.getFields().stream().anyMatch(SchemaRequest.Field::isPrimaryKey)) {
+            if (i < fields.size() - 1 || hasPrimaryKey) {
                 sb.append(",");
             }
             sb.append("\n");
-
-            if (field.isPrimaryKey()) {
-                pkFields.add(field.getName());
-            }
         }
 
-        if (!pkFields.isEmpty()) {
-            sb.append("    PRIMARY KEY (").append(String.join(", ", pkFields)).append(")\n");
+        if (hasPrimaryKey) {
+            sb.append("    PRIMARY KEY (");
+            for (int i = 0; i < table.primaryKey().size(); i++) {
+                if (i > 0) sb.append(", ");
+                sb.append(table.primaryKey().get(i).getName());
+            }
+            sb.append(")\n");
         }
 
         sb.append(");\n");
-        return sb.toString();
     }
 
-    private String generateOneToOneSQL(SchemaRequest.Relationship rel, Map<String, SchemaRequest.Table> tableNameMap) {
-        String pkSource = getPrimaryKeyColumn(rel.getSourceTableName(), tableNameMap);
-        String pkType = getPrimaryKeyType(rel.getSourceTableName(), tableNameMap);
-        String fkName = rel.getSourceTableName() + "_" + pkSource;
+    private void appendOneToOneSQL(StringBuilder sb, SchemaRequest.Relationship rel, CompiledSchema schema) {
+        SchemaRequest.Field pk = schema.primaryKey(rel.getSourceTableName());
+        String fkName = rel.getSourceTableName() + "_" + pk.getName();
 
-        return "ALTER TABLE " + rel.getTargetTableName() + " ADD COLUMN " +
-                fkName + " " + pkType + " UNIQUE,\n" +
-                "ADD CONSTRAINT fk_" + rel.getTargetTableName() + "_" + rel.getSourceTableName() +
-                " FOREIGN KEY (" + fkName + ") REFERENCES " + rel.getSourceTableName() + "(" + pkSource + ");\n";
+        sb.append("ALTER TABLE ").append(rel.getTargetTableName()).append(" ADD COLUMN ")
+                .append(fkName).append(" ").append(SchemaDdl.storageType(pk.getType())).append(" UNIQUE,\n")
+                .append("ADD CONSTRAINT fk_").append(rel.getTargetTableName()).append("_").append(rel.getSourceTableName())
+                .append(" FOREIGN KEY (").append(fkName).append(") REFERENCES ").append(rel.getSourceTableName())
+                .append("(").append(pk.getName()).append(");\n");
     }
 
-    private String generateOneToManySQL(SchemaRequest.Relationship rel, Map<String, SchemaRequest.Table> tableNameMap) {
+    private void appendOneToManySQL(StringBuilder sb, SchemaRequest.Relationship rel, CompiledSchema schema) {
         String manyTable;
         String oneTable;
 
@@ -106,83 +294,44 @@ public class SQLGeneratorService {
             oneTable = rel.getSourceTableName();
         }
 
-        String pkOne = getPrimaryKeyColumn(oneTable, tableNameMap);
-        String pkType = getPrimaryKeyType(oneTable, tableNameMap);
-        String fkName = oneTable + "_" + pkOne;
+        SchemaRequest.Field pk = schema.primaryKey(oneTable);
+        String fkName = oneTable + "_" + pk.getName();
 
-        return "ALTER TABLE " + manyTable + " ADD COLUMN " +
-                fkName + " " + pkType + ",\n" +
-                "ADD CONSTRAINT fk_" + manyTable + "_" + oneTable +
-                " FOREIGN KEY (" + fkName + ") REFERENCES " + oneTable + "(" + pkOne + ");\n";
+        sb.append("ALTER TABLE ").append(manyTable).append(" ADD COLUMN ")
+                .append(fkName).append(" ").append(SchemaDdl.storageType(pk.getType())).append(",\n")
+                .append("ADD CONSTRAINT fk_").append(manyTable).append("_").append(oneTable)
+                .append(" FOREIGN KEY (").append(fkName).append(") REFERENCES ").append(oneTable)
+                .append("(").append(pk.getName()).append(");\n");
     }
 
-    private String generateManyToManySQL(SchemaRequest.Relationship rel, Map<String, SchemaRequest.Table> tableNameMap) {
+    private void appendManyToManySQL(StringBuilder sb, SchemaRequest.Relationship rel, CompiledSchema schema) {
         String intermediateTable = rel.getSourceTableName() + "_" + rel.getTargetTableName();
-        String pkSource = getPrimaryKeyColumn(rel.getSourceTableName(), tableNameMap);
-        String pkSourceType = getPrimaryKeyType(rel.getSourceTableName(), tableNameMap);
-        String pkTarget = getPrimaryKeyColumn(rel.getTargetTableName(), tableNameMap);
-        String pkTargetType = getPrimaryKeyType(rel.getTargetTableName(), tableNameMap);
-
-        String fkSourceColumn = rel.getSourceTableName() + "_" + pkSource;
-        String fkTargetColumn = rel.getTargetTableName() + "_" + pkTarget;
-
-        return "CREATE TABLE " + intermediateTable + " (\n" +
-                "    " + fkSourceColumn + " " + pkSourceType + " NOT NULL,\n" +
-                "    " + fkTargetColumn + " " + pkTargetType + " NOT NULL,\n" +
-                "    PRIMARY KEY (" + fkSourceColumn + ", " + fkTargetColumn + "),\n" +
-                "    FOREIGN KEY (" + fkSourceColumn + ") REFERENCES " + rel.getSourceTableName() + "(" + pkSource + "),\n" +
-                "    FOREIGN KEY (" + fkTargetColumn + ") REFERENCES " + rel.getTargetTableName() + "(" + pkTarget + ")\n" +
-                ");\n";
+        SchemaRequest.Field pkSource = schema.primaryKey(rel.getSourceTableName());
+        SchemaRequest.Field pkTarget = schema.primaryKey(rel.getTargetTableName());
+
+        String fkSourceColumn = rel.getSourceTableName() + "_" + pkSource.getName();
+        String fkTargetColumn = rel.getTargetTableName() + "_" + pkTarget.getName();
+
+        sb.append("CREATE TABLE ").append(intermediateTable).append(" (\n")
+                .append("    ").append(fkSourceColumn).append(" ").append(SchemaDdl.storageType(pkSource.getType())).append(" NOT NULL,\n")
+                .append("    ").append(fkTargetColumn).append(" ").append(SchemaDdl.storageType(pkTarget.getType())).append(" NOT NULL,\n")
+                .append("    PRIMARY KEY (").append(fkSourceColumn).append(", ").append(fkTargetColumn).append("),\n")
+                .append("    FOREIGN KEY (").append(fkSourceColumn).append(") REFERENCES ").append(rel.getSourceTableName())
+                .append("(").append(pkSource.getName()).append("),\n")
+                .append("    FOREIGN KEY (").append(fkTargetColumn).append(") REFERENCES ").append(rel.getTargetTableName())
+                .append("(").append(pkTarget.getName()).append(")\n")
+                .append(");\n");
     }
 
-    private String generateInheritanceSQL(SchemaRequest.Relationship rel, Map<String, SchemaRequest.Table> tableNameMap) {
+    private void appendInheritanceSQL(StringBuilder sb, SchemaRequest.Relationship rel, CompiledSchema schema) {
         String parentTable = rel.getSourceTableName();
         String childTable = rel.getTargetTableName();
 
-        String pkParent = getPrimaryKeyColumn(parentTable, tableNameMap);
-        String pkType = getPrimaryKeyType(parentTable, tableNameMap);
-
-        String pkChild = getPrimaryKeyColumn(childTable, tableNameMap);
-
-        return "ALTER TABLE " + childTable + " ADD CONSTRAINT fk_" + childTable + "_" + parentTable +
-                " FOREIGN KEY (" + pkChild + ") REFERENCES " + parentTable + "(" + pkParent + ");\n";
-    }
-
-
-    private String getPrimaryKeyColumn(String tableName, Map<String, SchemaRequest.Table> tableNameMap) {
-        SchemaRequest.Table table = tableNameMap.get(tableName);
-        if (table != null) {
-            for (SchemaRequest.Field field : table.getFields()) {
-                if (field.isPrimaryKey()) {
-                    return field.getName();
-                }
-            }
-        }
-        throw new RuntimeException("Primary key not found for table " + tableName);
-    }
-
-    private String getPrimaryKeyType(String tableName, Map<String, SchemaRequest.Table> tableNameMap) {
-        SchemaRequest.Table table = tableNameMap.get(tableName);
-        if (table != null) {
-            for (SchemaRequest.Field field : table.getFields()) {
-                if (field.isPrimaryKey()) {
-                    return field.getType();
-                }
-            }
-        }
-        throw new RuntimeException("Primary key type not found for table " + tableName);
-    }
+        SchemaRequest.Field pkParent = schema.primaryKey(parentTable);
+        SchemaRequest.Field pkChild = schema.primaryKey(childTable);
 
-    private void executeSQLScript(String sqlScript) {
-        for (String sql : sqlScript.split(";")) {
-            if (!sql.trim().isEmpty()) {
-                jdbcTemplate.execute(sql.trim() + ";");
-            }
-        }
+        sb.append("ALTER TABLE ").append(childTable).append(" ADD CONSTRAINT fk_").append(childTable).append("_").append(parentTable)
+                .append(" FOREIGN KEY (").append(pkChild.getName()).append(") REFERENCES ").append(parentTable)
+                .append("(").append(pkParent.getName()).append(");\n");
     }
-    private void clearDatabase() {
-        jdbcTemplate.execute("DROP SCHEMA public CASCADE;");
-        jdbcTemplate.execute("CREATE SCHEMA public;");
-    }
-
 }
@@ -0,0 +1,207 @@
+package com.wcpk.db_schema_designer.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders {@link SchemaModel} elements as PostgreSQL DDL for the deployer and
+ * the migration planner. Constraint names follow PostgreSQL's defaults
+ * ({@code <table>_pkey}, {@code <table>_<column>_key}) so later migrations can
+ * refer to them.
+ */
+final class SchemaDdl {
+
+    private SchemaDdl() {
+    }
+
+    static String createTable(SchemaModel.TableDef table) {
+        return createTable(table, List.of());
+    }
+
+    /**
+     * CREATE TABLE with the given foreign keys declared inline, as the generator
+     * does for junction tables. Unnamed inline keys get PostgreSQL's default
+     * {@code <table>_<column>_fkey} names.
+     */
+    static String createTable(SchemaModel.TableDef table, List<SchemaModel.ForeignKeyDef> foreignKeys) {
+        List<String> lines = new ArrayList<>();
+        for (SchemaModel.ColumnDef column : table.columns()) {
+            lines.add(column(column));
+        }
+        if (!table.primaryKey().isEmpty()) {
+            lines.add("PRIMARY KEY (" + String.join(", ", table.primaryKey()) + ")");
+        }
+        for (SchemaModel.ForeignKeyDef fk : foreignKeys) {
+            lines.add("FOREIGN KEY (" + String.join(", ", fk.columns()) + ") REFERENCES "
+                    + fk.referencedTable() + "(" + String.join(", ", fk.referencedColumns()) + ")");
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("CREATE TABLE ").append(table.name()).append(" (\n");
+        for (int i = 0; i < lines.size(); i++) {
+            sb.append("    ").append(lines.get(i));
+            if (i < lines.size() - 1) {
+                sb.append(",");
+            }
+            sb.append("\n");
+        }
+        return sb.append(");\n").toString();
+    }
+
+    static String column(SchemaModel.ColumnDef column) {
+        StringBuilder sb = new StringBuilder(column.name()).append(" ").append(column.type());
+        if (column.notNull()) sb.append(" NOT NULL");
+        if (column.unique()) sb.append(" UNIQUE");
+        return sb.toString();
+    }
+
+    static String addForeignKey(SchemaModel.ForeignKeyDef fk) {
+        return "ALTER TABLE " + fk.table() + " ADD CONSTRAINT " + fk.name()
+                + " FOREIGN KEY (" + String.join(", ", fk.columns()) + ") REFERENCES "
+                + fk.referencedTable() + "(" + String.join(", ", fk.referencedColumns()) + ");\n";
+    }
+
+    /**
+     * Lays out the script that builds {@code model} from scratch: designer
+     * tables with the columns their relationships add, then junction tables,
+     * which declare their foreign keys inline and so need both endpoints, then
+     * the remaining foreign keys.
+     */
+    static Script script(SchemaModel model) {
+        Map<String, List<SchemaModel.ForeignKeyDef>> inline = new HashMap<>();
+        List<SchemaModel.ForeignKeyDef> foreignKeys = new ArrayList<>();
+        for (SchemaModel.ForeignKeyDef fk : model.foreignKeys()) {
+            SchemaModel.TableDef table = model.table(fk.table());
+            if (table != null && table.isJunction()) {
+                inline.computeIfAbsent(SchemaModel.key(table.name()), k -> new ArrayList<>()).add(fk);
+            } else {
+                foreignKeys.add(fk);
+            }
+        }
+
+        List<SchemaModel.TableDef> tables = new ArrayList<>();
+        List<SchemaModel.TableDef> junctions = new ArrayList<>();
+        for (SchemaModel.TableDef table : model.tables()) {
+            (table.isJunction() ? junctions : tables).add(table);
+        }
+        return new Script(tables, junctions, inline, foreignKeys);
+    }
+
+    /**
+     * The statements of {@link #script}, rendered on demand so that a large
+     * script can be streamed.
+     */
+    record Script(List<SchemaModel.TableDef> tables, List<SchemaModel.TableDef> junctions,
+                  Map<String, List<SchemaModel.ForeignKeyDef>> inlineForeignKeys,
+                  List<SchemaModel.ForeignKeyDef> foreignKeys) {
+
+        int size() {
+            return tables.size() + junctions.size() + foreignKeys.size();
+        }
+
+        String statement(int i) {
+            if (i < tables.size()) {
+                return createTable(tables.get(i));
+            }
+            i -= tables.size();
+            if (i < junctions.size()) {
+                SchemaModel.TableDef junction = junctions.get(i);
+                return createTable(junction, inlineForeignKeys(junction));
+            }
+            return addForeignKey(foreignKeys.get(i - junctions.size()));
+        }
+
+        List<SchemaModel.ForeignKeyDef> inlineForeignKeys(SchemaModel.TableDef junction) {
+            return inlineForeignKeys.getOrDefault(SchemaModel.key(junction.name()), List.of());
+        }
+    }
+
+    static String primaryKeyName(String table) {
+        return table + "_pkey";
+    }
+
+    static String uniqueName(String table, String column) {
+        return table + "_" + column + "_key";
+    }
+
+    /**
+     * The type a column holds values of: the serial pseudo-types become the
+     * integer type they are built on. Columns that reference a serial key and
+     * {@code ALTER COLUMN ... TYPE} need this, since serial only works in
+     * {@code CREATE TABLE} and {@code ADD COLUMN}.
+     */
+    static String storageType(String type) {
+        if (type == null) return null;
+        return switch (type.trim().toLowerCase()) {
+            case "smallserial", "serial2" -> "smallint";
+            case "serial", "serial4" -> "integer";
+            case "bigserial", "serial8" -> "bigint";
+            default -> type;
+        };
+    }
+
+    /**
+     * Compares two type spellings, treating aliases such as {@code int} and
+     * {@code integer} as equal but keeping length/precision modifiers significant.
+     */
+    static boolean sameType(String a, String b) {
+        return typeKey(a).equals(typeKey(b));
+    }
+
+    /**
+     * Whether changing a column from one type to the other is binary coercible,
+     * so PostgreSQL only updates the catalog instead of rewriting the table:
+     * widening or removing a {@code varchar} length, {@code varchar} to
+     * {@code text}, and widening or removing a {@code numeric} precision.
+     */
+    static boolean changesWithoutRewrite(String from, String to) {
+        if (sameType(from, to)) return true;
+        String fromType = SchemaStaticValidator.canonicalType(from);
+        String toType = SchemaStaticValidator.canonicalType(to);
+        if (fromType == null || toType == null || !arrays(from).equals(arrays(to))) return false;
+
+        int[] fromModifiers = modifiers(from);
+        int[] toModifiers = modifiers(to);
+        boolean fromText = fromType.equals("text") || fromType.equals("character varying");
+        if (fromText && toType.equals("text")) return true;
+        if (fromText && toType.equals("character varying")) {
+            return toModifiers.length == 0
+                    || fromType.equals("character varying") && fromModifiers.length == 1 && toModifiers[0] >= fromModifiers[0];
+        }
+        if (fromType.equals("numeric") && toType.equals("numeric")) {
+            return toModifiers.length == 0
+                    || fromModifiers.length > 0 && toModifiers[0] >= fromModifiers[0]
+                    && (fromModifiers.length > 1 ? fromModifiers[1] : 0) == (toModifiers.length > 1 ? toModifiers[1] : 0);
+        }
+        return false;
+    }
+
+    private static int[] modifiers(String type) {
+        int open = type.indexOf('(');
+        int close = type.indexOf(')', open + 1);
+        if (open < 0 || close < 0) return new int[0];
+        try {
+            return Arrays.stream(type.substring(open + 1, close).split(","))
+                    .mapToInt(m -> Integer.parseInt(m.trim()))
+                    .toArray();
+        } catch (NumberFormatException e) {
+            return new int[0];
+        }
+    }
+
+    private static String arrays(String type) {
+        return type.replaceAll("[^\\[]", "");
+    }
+
+    private static String typeKey(String type) {
+        if (type == null) return "";
+        String lower = type.toLowerCase().trim();
+        String modifiers = lower.replaceAll("[^(]*(\\([^)]*\\))?.*", "$1").replaceAll("\\s+", "");
+        String arrays = arrays(lower);
+        String canonical = SchemaStaticValidator.canonicalType(type);
+        return (canonical != null ? canonical : lower.replaceAll("\\s+", " ")) + modifiers + arrays;
+    }
+}
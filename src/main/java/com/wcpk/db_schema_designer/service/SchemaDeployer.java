@@ -0,0 +1,290 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.DatabaseConnectionRequest;
+import com.wcpk.db_schema_designer.dto.DeployPhase;
+import com.wcpk.db_schema_designer.dto.SchemaDeployRequest;
+import com.wcpk.db_schema_designer.dto.SchemaDeployResponse;
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Deploys a design to a target database in dependency order: designer tables,
+ * then junction tables (which reference both of their endpoints), then foreign
+ * keys. Within a phase, statements are packed into waves that lock disjoint
+ * tables; each wave is split across several pooled connections and run in
+ * parallel, each connection sending its share as one batch in one transaction.
+ * A failing statement rolls back its batch and stops the deploy after the
+ * current wave, so the tables created so far are left in place. Since
+ * PostgreSQL reports every entry of a failed batch as failed, the batch is then
+ * re-run one statement at a time to find the one that fails.
+ * <p>
+ * A deploy uses one connection fewer than the target's pool, so other requests
+ * to the same target can still get a connection while it runs, and holds one
+ * bulkhead permit per connection. It waits for the first permit like any other
+ * request; further workers only start where the bulkhead has free permits.
+ */
+@Service
+@RequiredArgsConstructor
+public class SchemaDeployer {
+
+    private final TargetDataSourceRegistry dataSourceRegistry;
+    private final TargetBulkhead targetBulkhead;
+    private final SchemaStaticValidator schemaStaticValidator;
+
+    @Value("${target-db.deploy.parallelism:0}")
+    private int parallelism;
+
+    /**
+     * @param locks lower-cased names of existing tables the statement locks
+     */
+    record DeployStatement(String sql, String table, Set<String> locks) {
+    }
+
+    record Phase(String name, List<List<DeployStatement>> waves) {
+
+        int size() {
+            return waves.stream().mapToInt(List::size).sum();
+        }
+    }
+
+    record ChunkResult(int executed, SchemaDiagnostic failure) {
+    }
+
+    public SchemaDeployResponse deploy(SchemaDeployRequest request) {
+        SchemaDeployResponse response = new SchemaDeployResponse();
+        List<SchemaDiagnostic> diagnostics = new ArrayList<>(schemaStaticValidator.validate(request.getDesign()));
+        response.setDiagnostics(diagnostics);
+        if (diagnostics.stream().anyMatch(d -> "ERROR".equals(d.getSeverity()))) {
+            response.setStatus("ERROR");
+            response.setMessage("The design has errors");
+            return response;
+        }
+
+        List<Phase> phases;
+        try {
+            phases = plan(SchemaModel.compile(request.getDesign()));
+        } catch (IllegalArgumentException e) {
+            response.setStatus("ERROR");
+            response.setMessage(e.getMessage());
+            return response;
+        }
+
+        int maxWorkers = Math.max(1, Math.min(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                dataSourceRegistry.getMaxPoolSize() - 1));
+        DatabaseConnectionRequest dcr = request.getDatabaseConnectionRequest();
+        List<TargetBulkhead.Permit> permits = new ArrayList<>();
+        permits.add(targetBulkhead.enter(dcr));
+        try {
+            TargetBulkhead.Permit permit;
+            while (permits.size() < maxWorkers && (permit = targetBulkhead.tryEnter(dcr)) != null) {
+                permits.add(permit);
+            }
+            response.setParallelism(permits.size());
+            return execute(dcr, phases, permits.size(), response);
+        } finally {
+            permits.forEach(TargetBulkhead.Permit::close);
+        }
+    }
+
+    private SchemaDeployResponse execute(DatabaseConnectionRequest dcr, List<Phase> phases, int workers,
+                                         SchemaDeployResponse response) {
+        long start = System.currentTimeMillis();
+        List<DeployPhase> phaseResults = new ArrayList<>();
+        response.setPhases(phaseResults);
+        int executed = 0;
+        boolean failed = false;
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Phase phase : phases) {
+                if (failed) break;
+                long phaseStart = System.currentTimeMillis();
+                DeployPhase phaseResult = new DeployPhase();
+                phaseResult.setName(phase.name());
+                phaseResult.setStatements(phase.size());
+                phaseResult.setWaves(phase.waves().size());
+                phaseResults.add(phaseResult);
+
+                for (List<DeployStatement> wave : phase.waves()) {
+                    List<Future<ChunkResult>> futures = new ArrayList<>();
+                    for (List<DeployStatement> chunk : split(wave, workers)) {
+                        futures.add(executor.submit(() -> runChunk(dcr, chunk)));
+                    }
+                    for (Future<ChunkResult> future : futures) {
+                        ChunkResult result = join(future);
+                        executed += result.executed();
+                        phaseResult.setStatementsExecuted(phaseResult.getStatementsExecuted() + result.executed());
+                        if (result.failure() != null) {
+                            response.getDiagnostics().add(result.failure());
+                            failed = true;
+                        }
+                    }
+                    if (failed) break;
+                }
+                phaseResult.setElapsedMs(System.currentTimeMillis() - phaseStart);
+            }
+        }
+
+        response.setStatementsExecuted(executed);
+        response.setElapsedMs(System.currentTimeMillis() - start);
+        if (failed) {
+            response.setStatus("ERROR");
+            response.setMessage("Deploy stopped after " + executed + " statements; objects created so far were kept");
+        } else {
+            response.setStatus("SUCCESS");
+            response.setMessage("Schema deployed: " + executed + " statements");
+        }
+        return response;
+    }
+
+    private ChunkResult runChunk(DatabaseConnectionRequest dcr, List<DeployStatement> chunk) {
+        try (Connection conn = dataSourceRegistry.getConnection(dcr)) {
+            return runChunk(conn, chunk);
+        } catch (SQLException e) {
+            return new ChunkResult(0, diagnostic(null, e));
+        }
+    }
+
+    static ChunkResult runChunk(Connection conn, List<DeployStatement> chunk) throws SQLException {
+        conn.setAutoCommit(false);
+        try (Statement stmt = conn.createStatement()) {
+            for (DeployStatement statement : chunk) {
+                stmt.addBatch(statement.sql());
+            }
+            stmt.executeBatch();
+            conn.commit();
+            return new ChunkResult(chunk.size(), null);
+        } catch (BatchUpdateException e) {
+            conn.rollback();
+            return findFailure(conn, chunk, e.getNextException() != null ? e.getNextException() : e);
+        } catch (SQLException e) {
+            conn.rollback();
+            return new ChunkResult(0, diagnostic(null, e));
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Re-runs a rolled back chunk one statement at a time, in a transaction that
+     * is rolled back again, and blames the first statement that fails. If none
+     * does, the batch error is reported without a statement.
+     */
+    private static ChunkResult findFailure(Connection conn, List<DeployStatement> chunk, SQLException batchError)
+            throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (DeployStatement statement : chunk) {
+                try {
+                    stmt.execute(statement.sql());
+                } catch (SQLException e) {
+                    return new ChunkResult(0, diagnostic(statement, e));
+                }
+            }
+            return new ChunkResult(0, diagnostic(null, batchError));
+        } finally {
+            conn.rollback();
+        }
+    }
+
+    /**
+     * Splits the {@link SchemaDdl#script script} of {@code model} into phases.
+     * Designer tables have no dependencies; junction tables declare their
+     * foreign keys inline and so need both endpoints; the remaining foreign
+     * keys need every table.
+     */
+    static List<Phase> plan(SchemaModel model) {
+        SchemaDdl.Script script = SchemaDdl.script(model);
+
+        List<DeployStatement> tables = new ArrayList<>();
+        for (SchemaModel.TableDef table : script.tables()) {
+            tables.add(new DeployStatement(SchemaDdl.createTable(table), table.name(), Set.of()));
+        }
+
+        List<DeployStatement> junctions = new ArrayList<>();
+        for (SchemaModel.TableDef table : script.junctions()) {
+            List<SchemaModel.ForeignKeyDef> fks = script.inlineForeignKeys(table);
+            Set<String> locks = new HashSet<>();
+            for (SchemaModel.ForeignKeyDef fk : fks) {
+                locks.add(SchemaModel.key(fk.referencedTable()));
+            }
+            junctions.add(new DeployStatement(SchemaDdl.createTable(table, fks), table.name(), locks));
+        }
+
+        List<DeployStatement> foreignKeys = new ArrayList<>();
+        for (SchemaModel.ForeignKeyDef fk : script.foreignKeys()) {
+            foreignKeys.add(new DeployStatement(SchemaDdl.addForeignKey(fk), fk.table(),
+                    Set.of(SchemaModel.key(fk.table()), SchemaModel.key(fk.referencedTable()))));
+        }
+
+        return List.of(new Phase("tables", waves(tables)),
+                new Phase("junction tables", waves(junctions)),
+                new Phase("foreign keys", waves(foreignKeys)));
+    }
+
+    /**
+     * First-fit packing into waves whose statements lock disjoint tables, so the
+     * statements of a wave neither wait for nor deadlock with each other.
+     */
+    static List<List<DeployStatement>> waves(List<DeployStatement> statements) {
+        List<List<DeployStatement>> waves = new ArrayList<>();
+        List<Set<String>> locked = new ArrayList<>();
+        for (DeployStatement statement : statements) {
+            int wave = 0;
+            while (wave < waves.size() && !Collections.disjoint(locked.get(wave), statement.locks())) {
+                wave++;
+            }
+            if (wave == waves.size()) {
+                waves.add(new ArrayList<>());
+                locked.add(new HashSet<>());
+            }
+            waves.get(wave).add(statement);
+            locked.get(wave).addAll(statement.locks());
+        }
+        return waves;
+    }
+
+    private static <T> List<List<T>> split(List<T> items, int parts) {
+        int n = Math.min(parts, items.size());
+        List<List<T>> chunks = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            chunks.add(new ArrayList<>());
+        }
+        for (int i = 0; i < items.size(); i++) {
+            chunks.get(i % n).add(items.get(i));
+        }
+        return chunks;
+    }
+
+    private ChunkResult join(Future<ChunkResult> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ChunkResult(0, diagnostic(null, new SQLException("Deploy interrupted", e)));
+        } catch (ExecutionException e) {
+            return new ChunkResult(0, diagnostic(null, new SQLException(e.getCause().getMessage(), e.getCause())));
+        }
+    }
+
+    private static SchemaDiagnostic diagnostic(DeployStatement statement, SQLException e) {
+        SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+        diagnostic.setCode(e.getSQLState() != null ? e.getSQLState() : "DEPLOY_ERROR");
+        diagnostic.setMessage(e.getMessage());
+        if (statement != null) {
+            diagnostic.setTable(statement.table());
+            diagnostic.setStatement(statement.sql());
+        }
+        return diagnostic;
+    }
+}
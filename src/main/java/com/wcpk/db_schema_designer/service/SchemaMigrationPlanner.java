@@ -0,0 +1,577 @@
+package com.wcpk.db_schema_designer.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Computes the DDL that turns one schema into another. Tables are matched by
+ * designer id (so renames are detected) and then by name; columns added by
+ * relationships are matched by the relationship that owns them. Statements are
+ * emitted in dependency order:
+ * <ol>
+ *     <li>drop foreign keys that go away or change, then drop tables</li>
+ *     <li>rename tables, then alter columns and keys of the remaining tables</li>
+ *     <li>create new tables, then add the new foreign keys</li>
+ * </ol>
+ * Work is proportional to the number of changed elements; unchanged tables
+ * produce no statements.
+ * <p>
+ * In online mode, used against live databases, keys on existing tables are
+ * built with {@code CREATE UNIQUE INDEX CONCURRENTLY}, foreign keys and
+ * {@code NOT NULL} are added unvalidated and validated separately, so no step
+ * holds an exclusive lock while it scans a table. The {@code NOT NULL} form
+ * relies on PostgreSQL 12+ skipping the scan when a valid check exists.
+ */
+@Component
+public class SchemaMigrationPlanner {
+
+    /** How much of the table a statement reads or writes. */
+    public enum Cost {
+        /** only new objects */
+        NONE,
+        /** catalog update only */
+        METADATA,
+        /** reads every row */
+        SCAN,
+        /** rewrites every row and rebuilds the indexes */
+        REWRITE
+    }
+
+    public enum Operation {
+        CREATE_TABLE("NONE", Cost.NONE, true),
+        DROP_TABLE("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        RENAME("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        ADD_COLUMN("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        /** fails on a table that has rows, since there is no default to fill in */
+        ADD_REQUIRED_COLUMN("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        DROP_COLUMN("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        ALTER_TYPE("ACCESS EXCLUSIVE", Cost.REWRITE, true),
+        ALTER_TYPE_IN_PLACE("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        SET_NOT_NULL("ACCESS EXCLUSIVE", Cost.SCAN, true),
+        SET_NOT_NULL_CHECKED("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        DROP_NOT_NULL("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        ADD_KEY("ACCESS EXCLUSIVE", Cost.SCAN, true),
+        ADD_KEY_USING_INDEX("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        ADD_FOREIGN_KEY("SHARE ROW EXCLUSIVE", Cost.SCAN, true),
+        ADD_FOREIGN_KEY_NOT_VALID("SHARE ROW EXCLUSIVE", Cost.METADATA, true),
+        ADD_CHECK_NOT_VALID("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        VALIDATE_CONSTRAINT("SHARE UPDATE EXCLUSIVE", Cost.SCAN, true),
+        DROP_CONSTRAINT("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        CREATE_INDEX_CONCURRENTLY("SHARE UPDATE EXCLUSIVE", Cost.SCAN, false),
+        DROP_INDEX("ACCESS EXCLUSIVE", Cost.METADATA, true),
+        DROP_INDEX_CONCURRENTLY("SHARE UPDATE EXCLUSIVE", Cost.METADATA, false);
+
+        private final String lockMode;
+        private final Cost cost;
+        private final boolean transactional;
+
+        Operation(String lockMode, Cost cost, boolean transactional) {
+            this.lockMode = lockMode;
+            this.cost = cost;
+            this.transactional = transactional;
+        }
+
+        public String getLockMode() {
+            return lockMode;
+        }
+
+        public Cost getCost() {
+            return cost;
+        }
+
+        /** {@code false} for statements PostgreSQL refuses to run inside a transaction block */
+        public boolean isTransactional() {
+            return transactional;
+        }
+    }
+
+    /**
+     * @param table name of the table the statement locks, or {@code null} if it spans several
+     */
+    public record Step(Operation operation, String table, String sql) {
+    }
+
+    /**
+     * @param steps migration statements in execution order
+     * @param touchedTables names of previous-version tables the migration depends on
+     * @param warnings changes the plan cannot make safely and leaves to the user
+     */
+    public record MigrationPlan(List<Step> steps, Set<String> touchedTables, List<String> warnings) {
+
+        public List<String> statements() {
+            return steps.stream().map(Step::sql).toList();
+        }
+
+        public String sql() {
+            return String.join("\n", statements());
+        }
+    }
+
+    public MigrationPlan plan(SchemaModel previous, SchemaModel current) {
+        return new Planner(previous, current, false, true).plan();
+    }
+
+    /**
+     * Plans the migration of a live database to a design using lock-friendly
+     * statements. Unless {@code dropUnmatched} is set, tables, columns and
+     * foreign keys that exist only in the database are left alone; such a
+     * foreign key that has to be dropped for a key or type change is added
+     * back afterwards, or reported in the warnings if its key goes away.
+     */
+    public MigrationPlan planOnline(SchemaModel live, SchemaModel design, boolean dropUnmatched) {
+        return new Planner(live, design, true, dropUnmatched).plan();
+    }
+
+    /**
+     * DDL that recreates just the tables of {@code previous} the plan touches,
+     * plus the foreign keys between them, so the plan can be dry-run without
+     * building the whole previous schema.
+     */
+    public String setupScript(SchemaModel previous, MigrationPlan plan) {
+        StringBuilder sb = new StringBuilder();
+        for (SchemaModel.TableDef table : previous.tables()) {
+            if (plan.touchedTables().contains(SchemaModel.key(table.name()))) {
+                sb.append(SchemaDdl.createTable(table)).append("\n");
+            }
+        }
+        for (SchemaModel.ForeignKeyDef fk : previous.foreignKeys()) {
+            if (plan.touchedTables().contains(SchemaModel.key(fk.table()))
+                    && plan.touchedTables().contains(SchemaModel.key(fk.referencedTable()))) {
+                sb.append(SchemaDdl.addForeignKey(fk)).append("\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    private static final class Planner {
+        private final SchemaModel previous;
+        private final SchemaModel current;
+        private final boolean online;
+        private final boolean dropUnmatched;
+
+        /** current table key -> matching previous table */
+        private final Map<String, SchemaModel.TableDef> matches = new HashMap<>();
+        /** previous table key -> current table name */
+        private final Map<String, String> tableNames = new HashMap<>();
+        /** previous table key -> (previous column key -> current column) */
+        private final Map<String, Map<String, SchemaModel.ColumnDef>> columnMatches = new HashMap<>();
+
+        private final List<Step> steps = new ArrayList<>();
+        /** foreign key renames, emitted last since they use current table names */
+        private final List<Step> constraintRenames = new ArrayList<>();
+        /** foreign keys outside the design that are dropped for a change and added back at the end */
+        private final List<SchemaModel.ForeignKeyDef> restoredForeignKeys = new ArrayList<>();
+        private final List<String> warnings = new ArrayList<>();
+        private final Set<String> touched = new HashSet<>();
+
+        private Planner(SchemaModel previous, SchemaModel current, boolean online, boolean dropUnmatched) {
+            this.previous = previous;
+            this.current = current;
+            this.online = online;
+            this.dropUnmatched = dropUnmatched;
+        }
+
+        private MigrationPlan plan() {
+            matchTables();
+
+            List<SchemaModel.ForeignKeyDef> addedForeignKeys = new ArrayList<>();
+            Set<SchemaModel.ForeignKeyDef> keptForeignKeys = new HashSet<>();
+            diffForeignKeys(addedForeignKeys, keptForeignKeys);
+
+            dropForeignKeys(keptForeignKeys);
+            if (dropUnmatched) {
+                dropTables();
+            }
+            renameTables();
+            for (SchemaModel.TableDef table : current.tables()) {
+                SchemaModel.TableDef prev = matches.get(SchemaModel.key(table.name()));
+                if (prev != null) {
+                    alterTable(prev, table);
+                }
+            }
+            for (SchemaModel.TableDef table : current.tables()) {
+                if (!matches.containsKey(SchemaModel.key(table.name()))) {
+                    add(Operation.CREATE_TABLE, table.name(), SchemaDdl.createTable(table));
+                }
+            }
+            for (SchemaModel.ForeignKeyDef fk : addedForeignKeys) {
+                touchCurrent(fk.table());
+                touchCurrent(fk.referencedTable());
+                addForeignKey(fk);
+            }
+            for (SchemaModel.ForeignKeyDef fk : restoredForeignKeys) {
+                addForeignKey(fk);
+            }
+            steps.addAll(constraintRenames);
+            return new MigrationPlan(List.copyOf(steps), Set.copyOf(touched), List.copyOf(warnings));
+        }
+
+        private void matchTables() {
+            Set<SchemaModel.TableDef> matched = new HashSet<>();
+            for (SchemaModel.TableDef table : current.tables()) {
+                SchemaModel.TableDef prev = previous.tableById(table.id());
+                if (prev != null && matched.add(prev)) {
+                    matches.put(SchemaModel.key(table.name()), prev);
+                }
+            }
+            for (SchemaModel.TableDef table : current.tables()) {
+                if (matches.containsKey(SchemaModel.key(table.name()))) continue;
+                SchemaModel.TableDef prev = previous.table(table.name());
+                boolean renamedAway = prev != null && current.tableById(prev.id()) != null && prev.id() != null;
+                if (prev != null && !renamedAway && matched.add(prev)) {
+                    matches.put(SchemaModel.key(table.name()), prev);
+                }
+            }
+
+            for (SchemaModel.TableDef table : current.tables()) {
+                SchemaModel.TableDef prev = matches.get(SchemaModel.key(table.name()));
+                if (prev != null) {
+                    tableNames.put(SchemaModel.key(prev.name()), table.name());
+                    columnMatches.put(SchemaModel.key(prev.name()), matchColumns(prev, table));
+                }
+            }
+        }
+
+        private Map<String, SchemaModel.ColumnDef> matchColumns(SchemaModel.TableDef prev, SchemaModel.TableDef table) {
+            Map<String, SchemaModel.ColumnDef> result = new HashMap<>();
+            Set<SchemaModel.ColumnDef> used = new HashSet<>();
+            for (SchemaModel.ColumnDef column : table.columns()) {
+                if (column.origin() == null) continue;
+                for (SchemaModel.ColumnDef p : prev.columns()) {
+                    if (column.origin().equals(p.origin()) && used.add(column)) {
+                        result.put(SchemaModel.key(p.name()), column);
+                    }
+                }
+            }
+            for (SchemaModel.ColumnDef p : prev.columns()) {
+                if (result.containsKey(SchemaModel.key(p.name()))) continue;
+                SchemaModel.ColumnDef column = table.column(p.name());
+                if (column != null && !used.contains(column)
+                        && (p.origin() == null || column.origin() == null || p.origin().equals(column.origin()))) {
+                    used.add(column);
+                    result.put(SchemaModel.key(p.name()), column);
+                }
+            }
+            return result;
+        }
+
+        /** Translates a previous foreign key into current names, or returns null if an end is unmatched. */
+        private SchemaModel.ForeignKeyDef translate(SchemaModel.ForeignKeyDef fk) {
+            String table = tableNames.get(SchemaModel.key(fk.table()));
+            String referenced = tableNames.get(SchemaModel.key(fk.referencedTable()));
+            if (table == null || referenced == null) return null;
+            List<String> columns = translateColumns(fk.table(), fk.columns());
+            List<String> referencedColumns = translateColumns(fk.referencedTable(), fk.referencedColumns());
+            if (columns == null || referencedColumns == null) return null;
+            return new SchemaModel.ForeignKeyDef(fk.name(), table, columns, referenced, referencedColumns);
+        }
+
+        private List<String> translateColumns(String prevTable, List<String> prevColumns) {
+            Map<String, SchemaModel.ColumnDef> columns = columnMatches.get(SchemaModel.key(prevTable));
+            List<String> result = new ArrayList<>(prevColumns.size());
+            for (String column : prevColumns) {
+                SchemaModel.ColumnDef match = columns.get(SchemaModel.key(column));
+                if (match == null) return null;
+                result.add(match.name());
+            }
+            return result;
+        }
+
+        private void diffForeignKeys(List<SchemaModel.ForeignKeyDef> added, Set<SchemaModel.ForeignKeyDef> kept) {
+            Map<String, SchemaModel.ForeignKeyDef> previousBySignature = new HashMap<>();
+            for (SchemaModel.ForeignKeyDef fk : previous.foreignKeys()) {
+                SchemaModel.ForeignKeyDef translated = translate(fk);
+                if (translated != null && !mustDrop(fk)) {
+                    previousBySignature.put(signature(translated), fk);
+                }
+            }
+
+            for (SchemaModel.ForeignKeyDef fk : current.foreignKeys()) {
+                SchemaModel.ForeignKeyDef prev = previousBySignature.remove(signature(fk));
+                if (prev == null) {
+                    added.add(fk);
+                    continue;
+                }
+                kept.add(prev);
+                if (!online && !prev.name().equalsIgnoreCase(fk.name())) {
+                    touchPrevious(prev.table());
+                    constraintRenames.add(new Step(Operation.RENAME, fk.table(),
+                            "ALTER TABLE " + fk.table() + " RENAME CONSTRAINT " + prev.name() + " TO " + fk.name() + ";\n"));
+                }
+            }
+        }
+
+        /** Whether the migration changes a key or column type the foreign key depends on. */
+        private boolean mustDrop(SchemaModel.ForeignKeyDef fk) {
+            boolean referencedMatched = tableNames.containsKey(SchemaModel.key(fk.referencedTable()));
+            return referencedMatched && primaryKeyChanged(fk.referencedTable())
+                    || columnTypeChanged(fk.table(), fk.columns())
+                    || columnTypeChanged(fk.referencedTable(), fk.referencedColumns());
+        }
+
+        private boolean primaryKeyChanged(String prevTableName) {
+            SchemaModel.TableDef prev = previous.table(prevTableName);
+            String currentName = tableNames.get(SchemaModel.key(prevTableName));
+            if (currentName == null) return true;
+            List<String> translated = translateColumns(prevTableName, prev.primaryKey());
+            return translated == null || !lowerCase(translated).equals(lowerCase(current.table(currentName).primaryKey()));
+        }
+
+        /** Whether any of the columns that survive the migration changes type. */
+        private boolean columnTypeChanged(String prevTableName, List<String> columns) {
+            Map<String, SchemaModel.ColumnDef> matchesByName = columnMatches.get(SchemaModel.key(prevTableName));
+            if (matchesByName == null) return false;
+            SchemaModel.TableDef prev = previous.table(prevTableName);
+            for (String column : columns) {
+                SchemaModel.ColumnDef match = matchesByName.get(SchemaModel.key(column));
+                if (match != null && !SchemaDdl.sameType(prev.column(column).type(), match.type())) return true;
+            }
+            return false;
+        }
+
+        private void dropForeignKeys(Set<SchemaModel.ForeignKeyDef> kept) {
+            for (SchemaModel.ForeignKeyDef fk : previous.foreignKeys()) {
+                boolean tableMatched = tableNames.containsKey(SchemaModel.key(fk.table()));
+                if (kept.contains(fk) || !tableMatched && dropUnmatched) {
+                    // kept, or removed together with its table
+                    continue;
+                }
+                if (!dropUnmatched && !mustDrop(fk)) {
+                    continue;
+                }
+                touchPrevious(fk.table());
+                touchPrevious(fk.referencedTable());
+                add(Operation.DROP_CONSTRAINT, fk.table(), "ALTER TABLE " + fk.table() + " DROP CONSTRAINT " + fk.name() + ";\n");
+                if (!dropUnmatched && !inDesign(fk)) {
+                    restore(fk);
+                }
+            }
+        }
+
+        private boolean inDesign(SchemaModel.ForeignKeyDef fk) {
+            SchemaModel.ForeignKeyDef translated = translate(fk);
+            if (translated == null) return false;
+            String signature = signature(translated);
+            return current.foreignKeys().stream().anyMatch(f -> signature(f).equals(signature));
+        }
+
+        /**
+         * Queues a foreign key the design does not know about to be added back
+         * under the names its tables and columns end up with. Tables and columns
+         * outside the design keep their names, since nothing is dropped.
+         */
+        private void restore(SchemaModel.ForeignKeyDef fk) {
+            String table = tableNames.getOrDefault(SchemaModel.key(fk.table()), fk.table());
+            String referenced = tableNames.getOrDefault(SchemaModel.key(fk.referencedTable()), fk.referencedTable());
+            List<String> referencedColumns = keptColumns(fk.referencedTable(), fk.referencedColumns());
+
+            SchemaModel.TableDef target = current.table(referenced);
+            if (target != null && !isKey(target, referencedColumns)) {
+                warnings.add("Foreign key " + fk.name() + " on " + table + " references " + referenced
+                        + referencedColumns + ", which is no longer a key; it is dropped and not added back");
+                return;
+            }
+            restoredForeignKeys.add(new SchemaModel.ForeignKeyDef(fk.name(), table,
+                    keptColumns(fk.table(), fk.columns()), referenced, referencedColumns));
+        }
+
+        private List<String> keptColumns(String prevTable, List<String> prevColumns) {
+            Map<String, SchemaModel.ColumnDef> columns = columnMatches.getOrDefault(SchemaModel.key(prevTable), Map.of());
+            List<String> result = new ArrayList<>(prevColumns.size());
+            for (String column : prevColumns) {
+                SchemaModel.ColumnDef match = columns.get(SchemaModel.key(column));
+                result.add(match == null ? column : match.name());
+            }
+            return result;
+        }
+
+        private static boolean isKey(SchemaModel.TableDef table, List<String> columns) {
+            if (lowerCase(columns).equals(lowerCase(table.primaryKey()))) return true;
+            SchemaModel.ColumnDef column = columns.size() == 1 ? table.column(columns.get(0)) : null;
+            return column != null && column.unique();
+        }
+
+        private void dropTables() {
+            List<String> dropped = new ArrayList<>();
+            for (SchemaModel.TableDef prev : previous.tables()) {
+                if (!tableNames.containsKey(SchemaModel.key(prev.name()))) {
+                    touchPrevious(prev.name());
+                    dropped.add(prev.name());
+                }
+            }
+            if (!dropped.isEmpty()) {
+                // one statement, so foreign keys among the dropped tables do not dictate an order
+                add(Operation.DROP_TABLE, dropped.size() == 1 ? dropped.get(0) : null,
+                        "DROP TABLE " + String.join(", ", dropped) + ";\n");
+            }
+        }
+
+        private void renameTables() {
+            for (SchemaModel.TableDef table : current.tables()) {
+                SchemaModel.TableDef prev = matches.get(SchemaModel.key(table.name()));
+                if (prev != null && !prev.name().equalsIgnoreCase(table.name())) {
+                    touchPrevious(prev.name());
+                    add(Operation.RENAME, table.name(), "ALTER TABLE " + prev.name() + " RENAME TO " + table.name() + ";\n");
+                }
+            }
+        }
+
+        private void alterTable(SchemaModel.TableDef prev, SchemaModel.TableDef table) {
+            String name = table.name();
+            int before = steps.size();
+            Map<String, SchemaModel.ColumnDef> columns = columnMatches.get(SchemaModel.key(prev.name()));
+            String prevPrimaryKey = prev.primaryKeyName() != null ? prev.primaryKeyName() : SchemaDdl.primaryKeyName(prev.name());
+
+            boolean pkChanged = primaryKeyChanged(prev.name());
+            if (pkChanged && !prev.primaryKey().isEmpty()) {
+                add(Operation.DROP_CONSTRAINT, name, "ALTER TABLE " + name + " DROP CONSTRAINT " + prevPrimaryKey + ";\n");
+            } else if (!pkChanged && !prev.primaryKey().isEmpty() && !prev.name().equalsIgnoreCase(name)) {
+                add(Operation.RENAME, name, "ALTER TABLE " + name + " RENAME CONSTRAINT " + prevPrimaryKey
+                        + " TO " + SchemaDdl.primaryKeyName(name) + ";\n");
+            }
+
+            Set<SchemaModel.ColumnDef> matchedColumns = new HashSet<>();
+            for (SchemaModel.ColumnDef p : prev.columns()) {
+                SchemaModel.ColumnDef column = columns.get(SchemaModel.key(p.name()));
+                if (column == null) {
+                    if (dropUnmatched) {
+                        add(Operation.DROP_COLUMN, name, "ALTER TABLE " + name + " DROP COLUMN " + p.name() + ";\n");
+                    }
+                    continue;
+                }
+                matchedColumns.add(column);
+
+                String prevUnique = p.uniqueName() != null ? p.uniqueName() : SchemaDdl.uniqueName(prev.name(), p.name());
+                if (p.unique() && !column.unique()) {
+                    dropUnique(name, p, prevUnique);
+                }
+                if (!p.name().equalsIgnoreCase(column.name())) {
+                    add(Operation.RENAME, name, "ALTER TABLE " + name + " RENAME COLUMN " + p.name() + " TO " + column.name() + ";\n");
+                }
+                if (!SchemaDdl.sameType(p.type(), column.type())) {
+                    String type = SchemaDdl.storageType(column.type());
+                    if (SchemaDdl.changesWithoutRewrite(p.type(), column.type())) {
+                        add(Operation.ALTER_TYPE_IN_PLACE, name, "ALTER TABLE " + name + " ALTER COLUMN " + column.name()
+                                + " TYPE " + type + ";\n");
+                    } else {
+                        add(Operation.ALTER_TYPE, name, "ALTER TABLE " + name + " ALTER COLUMN " + column.name()
+                                + " TYPE " + type + " USING " + column.name() + "::" + type + ";\n");
+                    }
+                }
+                if (p.notNull() && !column.notNull()) {
+                    add(Operation.DROP_NOT_NULL, name, "ALTER TABLE " + name + " ALTER COLUMN " + column.name() + " DROP NOT NULL;\n");
+                } else if (!p.notNull() && column.notNull()) {
+                    setNotNull(name, column.name());
+                }
+                if (!p.unique() && column.unique()) {
+                    addUnique(name, column.name());
+                } else if (p.unique() && column.unique() && p.uniqueName() == null
+                        && !prevUnique.equalsIgnoreCase(SchemaDdl.uniqueName(name, column.name()))) {
+                    add(Operation.RENAME, name, "ALTER TABLE " + name + " RENAME CONSTRAINT " + prevUnique
+                            + " TO " + SchemaDdl.uniqueName(name, column.name()) + ";\n");
+                }
+            }
+
+            for (SchemaModel.ColumnDef column : table.columns()) {
+                if (matchedColumns.contains(column)) continue;
+                // the unique constraint is added separately so it can be built without blocking writes
+                SchemaModel.ColumnDef plain = new SchemaModel.ColumnDef(column.name(), column.type(), column.notNull(),
+                        false, column.origin());
+                add(column.notNull() ? Operation.ADD_REQUIRED_COLUMN : Operation.ADD_COLUMN, name,
+                        "ALTER TABLE " + name + " ADD COLUMN " + SchemaDdl.column(plain) + ";\n");
+                if (column.unique()) {
+                    addUnique(name, column.name());
+                }
+            }
+
+            if (pkChanged && !table.primaryKey().isEmpty()) {
+                String columnList = String.join(", ", table.primaryKey());
+                if (online) {
+                    String index = SchemaDdl.primaryKeyName(name);
+                    add(Operation.CREATE_INDEX_CONCURRENTLY, name,
+                            "CREATE UNIQUE INDEX CONCURRENTLY " + index + " ON " + name + " (" + columnList + ");\n");
+                    add(Operation.ADD_KEY_USING_INDEX, name,
+                            "ALTER TABLE " + name + " ADD CONSTRAINT " + index + " PRIMARY KEY USING INDEX " + index + ";\n");
+                } else {
+                    add(Operation.ADD_KEY, name, "ALTER TABLE " + name + " ADD PRIMARY KEY (" + columnList + ");\n");
+                }
+            }
+
+            if (steps.size() > before) {
+                touchPrevious(prev.name());
+            }
+        }
+
+        private void dropUnique(String table, SchemaModel.ColumnDef column, String name) {
+            if (!column.uniqueIndexOnly()) {
+                add(Operation.DROP_CONSTRAINT, table, "ALTER TABLE " + table + " DROP CONSTRAINT " + name + ";\n");
+            } else if (online) {
+                add(Operation.DROP_INDEX_CONCURRENTLY, table, "DROP INDEX CONCURRENTLY " + name + ";\n");
+            } else {
+                add(Operation.DROP_INDEX, table, "DROP INDEX " + name + ";\n");
+            }
+        }
+
+        private void addUnique(String table, String column) {
+            String name = SchemaDdl.uniqueName(table, column);
+            if (online) {
+                add(Operation.CREATE_INDEX_CONCURRENTLY, table,
+                        "CREATE UNIQUE INDEX CONCURRENTLY " + name + " ON " + table + " (" + column + ");\n");
+                add(Operation.ADD_KEY_USING_INDEX, table,
+                        "ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE USING INDEX " + name + ";\n");
+            } else {
+                add(Operation.ADD_KEY, table, "ALTER TABLE " + table + " ADD CONSTRAINT " + name + " UNIQUE (" + column + ");\n");
+            }
+        }
+
+        private void setNotNull(String table, String column) {
+            if (!online) {
+                add(Operation.SET_NOT_NULL, table, "ALTER TABLE " + table + " ALTER COLUMN " + column + " SET NOT NULL;\n");
+                return;
+            }
+            String check = table + "_" + column + "_not_null";
+            add(Operation.ADD_CHECK_NOT_VALID, table, "ALTER TABLE " + table + " ADD CONSTRAINT " + check
+                    + " CHECK (" + column + " IS NOT NULL) NOT VALID;\n");
+            add(Operation.VALIDATE_CONSTRAINT, table, "ALTER TABLE " + table + " VALIDATE CONSTRAINT " + check + ";\n");
+            add(Operation.SET_NOT_NULL_CHECKED, table, "ALTER TABLE " + table + " ALTER COLUMN " + column + " SET NOT NULL;\n");
+            add(Operation.DROP_CONSTRAINT, table, "ALTER TABLE " + table + " DROP CONSTRAINT " + check + ";\n");
+        }
+
+        private void addForeignKey(SchemaModel.ForeignKeyDef fk) {
+            String sql = SchemaDdl.addForeignKey(fk);
+            // tables outside the design exist already, like matched ones
+            boolean existing = matches.containsKey(SchemaModel.key(fk.table())) || current.table(fk.table()) == null;
+            if (!online || !existing) {
+                add(Operation.ADD_FOREIGN_KEY, fk.table(), sql);
+                return;
+            }
+            add(Operation.ADD_FOREIGN_KEY_NOT_VALID, fk.table(), sql.substring(0, sql.length() - 2) + " NOT VALID;\n");
+            add(Operation.VALIDATE_CONSTRAINT, fk.table(), "ALTER TABLE " + fk.table() + " VALIDATE CONSTRAINT " + fk.name() + ";\n");
+        }
+
+        private void add(Operation operation, String table, String sql) {
+            steps.add(new Step(operation, table, sql));
+        }
+
+        private void touchPrevious(String prevTable) {
+            touched.add(SchemaModel.key(prevTable));
+        }
+
+        private void touchCurrent(String currentTable) {
+            SchemaModel.TableDef prev = matches.get(SchemaModel.key(currentTable));
+            if (prev != null) {
+                touchPrevious(prev.name());
+            }
+        }
+
+        private static String signature(SchemaModel.ForeignKeyDef fk) {
+            return SchemaModel.key(fk.table()) + lowerCase(fk.columns()) + "->"
+                    + SchemaModel.key(fk.referencedTable()) + lowerCase(fk.referencedColumns());
+        }
+
+        private static List<String> lowerCase(List<String> names) {
+            return names.stream().map(SchemaModel::key).toList();
+        }
+    }
+}
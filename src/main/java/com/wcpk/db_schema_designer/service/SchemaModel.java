@@ -0,0 +1,248 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import com.wcpk.db_schema_designer.model.Column;
+import com.wcpk.db_schema_designer.model.ForeignKey;
+import com.wcpk.db_schema_designer.model.Index;
+import com.wcpk.db_schema_designer.model.Table;
+
+import java.util.*;
+
+/**
+ * Physical view of a design: the tables, columns, primary keys and foreign keys
+ * that the generated DDL creates, including the columns and junction tables
+ * added by relationships. Tables are indexed by lower-cased name and by id.
+ * A model can also be built from an introspected database, so designs and
+ * live schemas can be compared. Instances are immutable.
+ */
+public final class SchemaModel {
+
+    /**
+     * @param origin stable identity across edits: {@code null} for designer
+     *               fields, {@code rel:<relationshipId>:<side>} for columns added by
+     *               a relationship
+     * @param uniqueName name of the index enforcing {@code unique}, or {@code null} for the default
+     * @param uniqueIndexOnly whether that index is a plain unique index rather than a constraint
+     */
+    public record ColumnDef(String name, String type, boolean notNull, boolean unique, String origin,
+                            String uniqueName, boolean uniqueIndexOnly) {
+
+        public ColumnDef(String name, String type, boolean notNull, boolean unique, String origin) {
+            this(name, type, notNull, unique, origin, null, false);
+        }
+    }
+
+    public record ForeignKeyDef(String name, String table, List<String> columns,
+                                String referencedTable, List<String> referencedColumns) {
+    }
+
+    /**
+     * @param id designer table id, or {@code rel:<relationshipId>} for junction tables
+     * @param primaryKeyName name of the primary key constraint, or {@code null} for the default
+     */
+    public record TableDef(String id, String name, List<ColumnDef> columns, List<String> primaryKey,
+                           String primaryKeyName) {
+
+        public TableDef(String id, String name, List<ColumnDef> columns, List<String> primaryKey) {
+            this(id, name, columns, primaryKey, null);
+        }
+
+        /** Whether the table is the junction table of a many-to-many relationship. */
+        public boolean isJunction() {
+            return id != null && id.startsWith("rel:");
+        }
+
+        public ColumnDef column(String columnName) {
+            for (ColumnDef column : columns) {
+                if (column.name().equalsIgnoreCase(columnName)) return column;
+            }
+            return null;
+        }
+    }
+
+    private final Map<String, TableDef> tablesByName;
+    private final Map<String, TableDef> tablesById;
+    private final List<ForeignKeyDef> foreignKeys;
+
+    private SchemaModel(List<TableDef> tables, List<ForeignKeyDef> foreignKeys) {
+        Map<String, TableDef> byName = new LinkedHashMap<>();
+        Map<String, TableDef> byId = new HashMap<>();
+        for (TableDef table : tables) {
+            byName.put(key(table.name()), table);
+            if (table.id() != null) byId.put(table.id(), table);
+        }
+        this.tablesByName = Collections.unmodifiableMap(byName);
+        this.tablesById = Collections.unmodifiableMap(byId);
+        this.foreignKeys = List.copyOf(foreignKeys);
+    }
+
+    public Collection<TableDef> tables() {
+        return tablesByName.values();
+    }
+
+    public TableDef table(String name) {
+        return name == null ? null : tablesByName.get(key(name));
+    }
+
+    public TableDef tableById(String id) {
+        return id == null ? null : tablesById.get(id);
+    }
+
+    public List<ForeignKeyDef> foreignKeys() {
+        return foreignKeys;
+    }
+
+    static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds the model the same way the DDL generator lays out relationships.
+     *
+     * @throws IllegalArgumentException if a relationship references a table without a primary key
+     */
+    public static SchemaModel compile(SchemaRequest schemaRequest) {
+        return compile(CompiledSchema.compile(schemaRequest));
+    }
+
+    public static SchemaModel compile(CompiledSchema schema) {
+        Map<String, Builder> builders = new LinkedHashMap<>();
+        for (CompiledSchema.CompiledTable table : schema.tables()) {
+            Builder builder = new Builder(table.source().getId(), table.name());
+            for (SchemaRequest.Field field : table.fields()) {
+                builder.columns.add(new ColumnDef(field.getName(), field.getType(), !field.isNullable(), field.isUnique(), null));
+            }
+            for (SchemaRequest.Field field : table.primaryKey()) {
+                builder.primaryKey.add(field.getName());
+            }
+            builders.putIfAbsent(key(table.name()), builder);
+        }
+
+        List<ForeignKeyDef> foreignKeys = new ArrayList<>();
+        for (SchemaRequest.Relationship rel : schema.relationships()) {
+            String origin = "rel:" + rel.getId();
+            switch (rel.getType() == null ? "" : rel.getType()) {
+                case "one-to-one" -> {
+                    SchemaRequest.Field pk = schema.primaryKey(rel.getSourceTableName());
+                    String fkColumn = rel.getSourceTableName() + "_" + pk.getName();
+                    builder(builders, rel.getTargetTableName()).columns
+                            .add(new ColumnDef(fkColumn, SchemaDdl.storageType(pk.getType()), false, true, origin + ":fk"));
+                    foreignKeys.add(new ForeignKeyDef("fk_" + rel.getTargetTableName() + "_" + rel.getSourceTableName(),
+                            rel.getTargetTableName(), List.of(fkColumn), rel.getSourceTableName(), List.of(pk.getName())));
+                }
+                case "one-to-many" -> {
+                    boolean sourceIsMany = "many".equalsIgnoreCase(rel.getSourceCardinality());
+                    String many = sourceIsMany ? rel.getSourceTableName() : rel.getTargetTableName();
+                    String one = sourceIsMany ? rel.getTargetTableName() : rel.getSourceTableName();
+                    SchemaRequest.Field pk = schema.primaryKey(one);
+                    String fkColumn = one + "_" + pk.getName();
+                    builder(builders, many).columns.add(new ColumnDef(fkColumn, SchemaDdl.storageType(pk.getType()), false, false, origin + ":fk"));
+                    foreignKeys.add(new ForeignKeyDef("fk_" + many + "_" + one, many, List.of(fkColumn), one, List.of(pk.getName())));
+                }
+                case "many-to-many" -> {
+                    String junction = rel.getSourceTableName() + "_" + rel.getTargetTableName();
+                    SchemaRequest.Field sourcePk = schema.primaryKey(rel.getSourceTableName());
+                    SchemaRequest.Field targetPk = schema.primaryKey(rel.getTargetTableName());
+                    String sourceColumn = rel.getSourceTableName() + "_" + sourcePk.getName();
+                    String targetColumn = rel.getTargetTableName() + "_" + targetPk.getName();
+
+                    Builder builder = new Builder(origin, junction);
+                    builder.columns.add(new ColumnDef(sourceColumn, SchemaDdl.storageType(sourcePk.getType()), true, false, origin + ":source"));
+                    builder.columns.add(new ColumnDef(targetColumn, SchemaDdl.storageType(targetPk.getType()), true, false, origin + ":target"));
+                    builder.primaryKey.add(sourceColumn);
+                    builder.primaryKey.add(targetColumn);
+                    builders.putIfAbsent(key(junction), builder);
+
+                    foreignKeys.add(new ForeignKeyDef(junction + "_" + sourceColumn + "_fkey", junction,
+                            List.of(sourceColumn), rel.getSourceTableName(), List.of(sourcePk.getName())));
+                    foreignKeys.add(new ForeignKeyDef(junction + "_" + targetColumn + "_fkey", junction,
+                            List.of(targetColumn), rel.getTargetTableName(), List.of(targetPk.getName())));
+                }
+                case "inheritance" -> {
+                    SchemaRequest.Field parentPk = schema.primaryKey(rel.getSourceTableName());
+                    SchemaRequest.Field childPk = schema.primaryKey(rel.getTargetTableName());
+                    foreignKeys.add(new ForeignKeyDef("fk_" + rel.getTargetTableName() + "_" + rel.getSourceTableName(),
+                            rel.getTargetTableName(), List.of(childPk.getName()), rel.getSourceTableName(),
+                            List.of(parentPk.getName())));
+                }
+                default -> {
+                    // unsupported relationship types are ignored, as in the generator
+                }
+            }
+        }
+
+        List<TableDef> tables = new ArrayList<>(builders.size());
+        for (Builder builder : builders.values()) {
+            tables.add(new TableDef(builder.id, builder.name, List.copyOf(builder.columns), List.copyOf(builder.primaryKey)));
+        }
+        return new SchemaModel(tables, foreignKeys);
+    }
+
+    /**
+     * Builds the model of one schema of an introspected database. Tables have no
+     * id, so they are matched to a design by name; single-column unique indexes
+     * become unique columns.
+     */
+    public static SchemaModel fromCatalog(List<Table> catalog, String schema) {
+        List<TableDef> tables = new ArrayList<>();
+        List<ForeignKeyDef> foreignKeys = new ArrayList<>();
+        for (Table table : catalog) {
+            if (!schema.equals(table.getSchema())) continue;
+
+            Map<String, Index> uniqueIndexes = new HashMap<>();
+            String primaryKeyName = null;
+            for (Index index : table.getIndexes()) {
+                if (index.isPrimary()) {
+                    primaryKeyName = index.getName();
+                } else if (index.isUnique() && index.getColumns().size() == 1
+                        && (index.getDefinition() == null || !index.getDefinition().contains(" WHERE "))) {
+                    uniqueIndexes.putIfAbsent(key(unquote(index.getColumns().get(0))), index);
+                }
+            }
+
+            List<ColumnDef> columns = new ArrayList<>();
+            for (Column column : table.getColumns()) {
+                Index unique = uniqueIndexes.get(key(column.getName()));
+                String type = column.getFormattedType() != null ? column.getFormattedType() : column.getType();
+                columns.add(new ColumnDef(column.getName(), type, !column.isNullable(), unique != null, null,
+                        unique == null ? null : unique.getName(), unique != null && !unique.isConstraint()));
+            }
+            tables.add(new TableDef(null, table.getName(), List.copyOf(columns), List.copyOf(table.getPrimaryKey()),
+                    primaryKeyName));
+
+            for (ForeignKey fk : table.getForeignKeys()) {
+                if (schema.equals(fk.getReferencedSchema())) {
+                    foreignKeys.add(new ForeignKeyDef(fk.getName(), table.getName(), List.copyOf(fk.getColumns()),
+                            fk.getReferencedTable(), List.copyOf(fk.getReferencedColumns())));
+                }
+            }
+        }
+        return new SchemaModel(tables, foreignKeys);
+    }
+
+    private static String unquote(String identifier) {
+        return identifier.length() > 1 && identifier.startsWith("\"") && identifier.endsWith("\"")
+                ? identifier.substring(1, identifier.length() - 1).replace("\"\"", "\"")
+                : identifier;
+    }
+
+    private static Builder builder(Map<String, Builder> builders, String tableName) {
+        Builder builder = tableName == null ? null : builders.get(key(tableName));
+        if (builder == null) {
+            throw new IllegalArgumentException("Unknown table " + tableName);
+        }
+        return builder;
+    }
+
+    private static final class Builder {
+        private final String id;
+        private final String name;
+        private final List<ColumnDef> columns = new ArrayList<>();
+        private final List<String> primaryKey = new ArrayList<>();
+
+        private Builder(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
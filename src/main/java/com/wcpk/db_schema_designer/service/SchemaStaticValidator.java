@@ -0,0 +1,311 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Checks a {@link SchemaRequest} for problems that can be found without a
+ * database: invalid or duplicate names, relationships to missing tables or
+ * tables without a usable primary key, foreign key type mismatches and
+ * inheritance cycles. Designs with errors are rejected before any DDL is
+ * generated or sent to PostgreSQL. Types that are not built in only get a
+ * warning, since enums, domains and extension types such as citext are valid
+ * once they exist in the target database; the DDL dry run decides.
+ */
+@Component
+public class SchemaStaticValidator {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*");
+
+    private static final Set<String> RESERVED_WORDS = Set.of(
+            "all", "analyse", "analyze", "and", "any", "array", "as", "asc", "asymmetric", "both", "case", "cast",
+            "check", "collate", "column", "constraint", "create", "current_catalog", "current_date", "current_role",
+            "current_time", "current_timestamp", "current_user", "default", "deferrable", "desc", "distinct", "do",
+            "else", "end", "except", "false", "fetch", "for", "foreign", "from", "grant", "group", "having", "in",
+            "initially", "intersect", "into", "lateral", "leading", "limit", "localtime", "localtimestamp", "not",
+            "null", "offset", "on", "only", "or", "order", "placing", "primary", "references", "returning", "select",
+            "session_user", "some", "symmetric", "table", "then", "to", "trailing", "true", "union", "unique", "user",
+            "using", "variadic", "when", "where", "window", "with");
+
+    /** Canonical type name by accepted spelling. */
+    private static final Map<String, String> TYPES = new HashMap<>();
+
+    /** Types in the same family can reference each other through a foreign key. */
+    private static final Map<String, String> TYPE_FAMILIES = Map.ofEntries(
+            Map.entry("smallint", "integer"), Map.entry("integer", "integer"), Map.entry("bigint", "integer"),
+            Map.entry("real", "float"), Map.entry("double precision", "float"),
+            Map.entry("text", "text"), Map.entry("character varying", "text"), Map.entry("character", "text"),
+            Map.entry("date", "datetime"), Map.entry("timestamp without time zone", "datetime"),
+            Map.entry("timestamp with time zone", "datetime"));
+
+    static {
+        alias("smallint", "smallint", "int2", "smallserial", "serial2");
+        alias("integer", "integer", "int", "int4", "serial", "serial4");
+        alias("bigint", "bigint", "int8", "bigserial", "serial8");
+        alias("numeric", "numeric", "decimal");
+        alias("real", "real", "float4");
+        alias("double precision", "double precision", "float8", "float");
+        alias("boolean", "boolean", "bool");
+        alias("text", "text");
+        alias("character varying", "character varying", "varchar");
+        alias("character", "character", "char", "bpchar");
+        alias("date", "date");
+        alias("time without time zone", "time", "time without time zone");
+        alias("time with time zone", "timetz", "time with time zone");
+        alias("timestamp without time zone", "timestamp", "timestamp without time zone");
+        alias("timestamp with time zone", "timestamptz", "timestamp with time zone");
+        alias("bit varying", "varbit", "bit varying");
+        for (String type : List.of("money", "bytea", "interval", "uuid", "json", "jsonb", "xml", "inet", "cidr",
+                "macaddr", "macaddr8", "point", "line", "lseg", "box", "path", "polygon", "circle", "bit",
+                "tsvector", "tsquery", "int4range", "int8range", "numrange", "tsrange", "tstzrange", "daterange",
+                "oid")) {
+            alias(type, type);
+        }
+    }
+
+    private static void alias(String canonical, String... spellings) {
+        for (String spelling : spellings) {
+            TYPES.put(spelling, canonical);
+        }
+    }
+
+    public List<SchemaDiagnostic> validate(SchemaRequest schemaRequest) {
+        List<SchemaDiagnostic> diagnostics = new ArrayList<>();
+        List<SchemaRequest.Table> tables = schemaRequest.getTables() == null ? List.of() : schemaRequest.getTables();
+        List<SchemaRequest.Relationship> relationships =
+                schemaRequest.getRelationships() == null ? List.of() : schemaRequest.getRelationships();
+
+        CompiledSchema schema = CompiledSchema.compile(schemaRequest);
+        Set<String> tableNames = new HashSet<>();
+        Map<String, Set<String>> columnsByTable = new HashMap<>();
+        for (SchemaRequest.Table table : tables) {
+            checkName(diagnostics, table.getName(), table.getName(), null);
+            if (table.getName() == null) continue;
+
+            String key = table.getName().toLowerCase();
+            if (!tableNames.add(key)) {
+                diagnostics.add(error("DUPLICATE_TABLE", "Table " + table.getName() + " is defined more than once",
+                        table.getName(), null));
+                continue;
+            }
+            columnsByTable.put(key, checkFields(diagnostics, table));
+        }
+
+        Map<String, List<String>> inheritanceChildren = new HashMap<>();
+        for (SchemaRequest.Relationship rel : relationships) {
+            checkRelationship(diagnostics, rel, schema, columnsByTable, inheritanceChildren);
+        }
+        checkInheritanceCycles(diagnostics, inheritanceChildren);
+        return diagnostics;
+    }
+
+    private Set<String> checkFields(List<SchemaDiagnostic> diagnostics, SchemaRequest.Table table) {
+        Set<String> columns = new HashSet<>();
+        if (table.getFields() == null || table.getFields().isEmpty()) {
+            diagnostics.add(warning("EMPTY_TABLE", "Table " + table.getName() + " has no columns", table.getName(), null));
+            return columns;
+        }
+
+        for (SchemaRequest.Field field : table.getFields()) {
+            checkName(diagnostics, field.getName(), table.getName(), field.getName());
+            if (field.getName() != null && !columns.add(field.getName().toLowerCase())) {
+                diagnostics.add(error("DUPLICATE_COLUMN", "Column " + field.getName() + " is defined more than once in table "
+                        + table.getName(), table.getName(), field.getName()));
+            }
+            if (field.getType() == null || field.getType().isBlank()) {
+                diagnostics.add(error("MISSING_TYPE", "Column " + table.getName() + "." + field.getName()
+                        + " has no type", table.getName(), field.getName()));
+            } else if (canonicalType(field.getType()) == null) {
+                diagnostics.add(warning("UNKNOWN_TYPE", "Type '" + field.getType() + "' of column " + table.getName()
+                        + "." + field.getName() + " is not built in and must exist in the target database",
+                        table.getName(), field.getName()));
+            }
+        }
+        return columns;
+    }
+
+    private void checkRelationship(List<SchemaDiagnostic> diagnostics, SchemaRequest.Relationship rel,
+                                   CompiledSchema schema, Map<String, Set<String>> columnsByTable,
+                                   Map<String, List<String>> inheritanceChildren) {
+        CompiledSchema.CompiledTable source = lookup(diagnostics, rel.getSourceTableName(), schema, rel);
+        CompiledSchema.CompiledTable target = lookup(diagnostics, rel.getTargetTableName(), schema, rel);
+        if (source == null || target == null) return;
+
+        switch (rel.getType() == null ? "" : rel.getType()) {
+            case "one-to-one" -> {
+                SchemaRequest.Field pk = requirePrimaryKey(diagnostics, source, rel);
+                if (pk != null) {
+                    checkGeneratedColumn(diagnostics, target, source.name() + "_" + pk.getName(), columnsByTable);
+                }
+            }
+            case "one-to-many" -> {
+                boolean sourceIsMany = "many".equalsIgnoreCase(rel.getSourceCardinality());
+                CompiledSchema.CompiledTable many = sourceIsMany ? source : target;
+                CompiledSchema.CompiledTable one = sourceIsMany ? target : source;
+                SchemaRequest.Field pk = requirePrimaryKey(diagnostics, one, rel);
+                if (pk != null) {
+                    checkGeneratedColumn(diagnostics, many, one.name() + "_" + pk.getName(), columnsByTable);
+                }
+            }
+            case "many-to-many" -> {
+                requirePrimaryKey(diagnostics, source, rel);
+                requirePrimaryKey(diagnostics, target, rel);
+                String junction = source.name() + "_" + target.name();
+                if (schema.table(junction) != null) {
+                    diagnostics.add(error("DUPLICATE_TABLE", "Junction table " + junction
+                            + " for relationship " + describe(rel) + " clashes with an existing table", junction, null));
+                }
+            }
+            case "inheritance" -> {
+                SchemaRequest.Field parentPk = requirePrimaryKey(diagnostics, source, rel);
+                SchemaRequest.Field childPk = requirePrimaryKey(diagnostics, target, rel);
+                if (parentPk != null && childPk != null) {
+                    checkForeignKeyType(diagnostics, target, childPk, source, parentPk);
+                }
+                inheritanceChildren.computeIfAbsent(source.name().toLowerCase(), k -> new ArrayList<>())
+                        .add(target.name().toLowerCase());
+            }
+            default -> diagnostics.add(warning("UNKNOWN_RELATIONSHIP", "Relationship " + describe(rel)
+                    + " has unsupported type '" + rel.getType() + "' and is ignored", null, null));
+        }
+    }
+
+    private CompiledSchema.CompiledTable lookup(List<SchemaDiagnostic> diagnostics, String name, CompiledSchema schema,
+                                                SchemaRequest.Relationship rel) {
+        CompiledSchema.CompiledTable table = schema.table(name);
+        if (table == null) {
+            diagnostics.add(error("UNKNOWN_TABLE", "Relationship " + describe(rel) + " references unknown table " + name,
+                    name, null));
+        }
+        return table;
+    }
+
+    private SchemaRequest.Field requirePrimaryKey(List<SchemaDiagnostic> diagnostics, CompiledSchema.CompiledTable table,
+                                                  SchemaRequest.Relationship rel) {
+        List<SchemaRequest.Field> pk = table.primaryKey();
+        if (pk.isEmpty()) {
+            diagnostics.add(error("MISSING_PRIMARY_KEY", "Table " + table.name()
+                    + " needs a primary key for relationship " + describe(rel), table.name(), null));
+            return null;
+        }
+        if (pk.size() > 1) {
+            diagnostics.add(error("COMPOSITE_PRIMARY_KEY", "Table " + table.name()
+                    + " has a composite primary key, which relationship " + describe(rel) + " cannot reference",
+                    table.name(), null));
+            return null;
+        }
+        return pk.get(0);
+    }
+
+    private void checkGeneratedColumn(List<SchemaDiagnostic> diagnostics, CompiledSchema.CompiledTable table,
+                                      String column, Map<String, Set<String>> columnsByTable) {
+        Set<String> columns = columnsByTable.computeIfAbsent(table.name().toLowerCase(), k -> new HashSet<>());
+        if (!columns.add(column.toLowerCase())) {
+            diagnostics.add(error("DUPLICATE_COLUMN", "Foreign key column " + column + " added by a relationship already exists in table "
+                    + table.name(), table.name(), column));
+        }
+    }
+
+    private void checkForeignKeyType(List<SchemaDiagnostic> diagnostics, CompiledSchema.CompiledTable child,
+                                     SchemaRequest.Field childPk, CompiledSchema.CompiledTable parent,
+                                     SchemaRequest.Field parentPk) {
+        String childType = canonicalType(childPk.getType());
+        String parentType = canonicalType(parentPk.getType());
+        if (childType == null || parentType == null || childType.equals(parentType)) return;
+
+        String childFamily = TYPE_FAMILIES.get(childType);
+        if (childFamily != null && childFamily.equals(TYPE_FAMILIES.get(parentType))) {
+            diagnostics.add(warning("FK_TYPE_MISMATCH", "Column " + child.name() + "." + childPk.getName() + " (" + childType
+                    + ") references " + parent.name() + "." + parentPk.getName() + " (" + parentType + ")",
+                    child.name(), childPk.getName()));
+        } else {
+            diagnostics.add(error("FK_TYPE_MISMATCH", "Column " + child.name() + "." + childPk.getName() + " (" + childType
+                    + ") cannot reference " + parent.name() + "." + parentPk.getName() + " (" + parentType + ")",
+                    child.name(), childPk.getName()));
+        }
+    }
+
+    private void checkInheritanceCycles(List<SchemaDiagnostic> diagnostics, Map<String, List<String>> children) {
+        Map<String, Integer> state = new HashMap<>();
+        for (String table : children.keySet()) {
+            List<String> cycle = findCycle(table, children, state, new ArrayList<>());
+            if (cycle != null) {
+                diagnostics.add(error("INHERITANCE_CYCLE", "Inheritance cycle: " + String.join(" -> ", cycle),
+                        cycle.get(0), null));
+                return;
+            }
+        }
+    }
+
+    /** Depth-first search; state 1 = on the current path, 2 = fully explored. */
+    private List<String> findCycle(String table, Map<String, List<String>> children, Map<String, Integer> state,
+                                   List<String> path) {
+        Integer current = state.get(table);
+        if (current != null) {
+            if (current == 1) {
+                List<String> cycle = new ArrayList<>(path.subList(path.indexOf(table), path.size()));
+                cycle.add(table);
+                return cycle;
+            }
+            return null;
+        }
+
+        state.put(table, 1);
+        path.add(table);
+        for (String child : children.getOrDefault(table, List.of())) {
+            List<String> cycle = findCycle(child, children, state, path);
+            if (cycle != null) return cycle;
+        }
+        path.remove(path.size() - 1);
+        state.put(table, 2);
+        return null;
+    }
+
+    private void checkName(List<SchemaDiagnostic> diagnostics, String name, String table, String field) {
+        String what = field == null ? "Table" : "Column";
+        if (name == null || name.isBlank()) {
+            diagnostics.add(error("INVALID_NAME", what + " name is empty", table, field));
+        } else if (!IDENTIFIER.matcher(name).matches()) {
+            diagnostics.add(error("INVALID_NAME", what + " name '" + name + "' is not a valid unquoted identifier",
+                    table, field));
+        } else if (RESERVED_WORDS.contains(name.toLowerCase())) {
+            diagnostics.add(error("RESERVED_NAME", what + " name '" + name + "' is a reserved word", table, field));
+        }
+    }
+
+    static String canonicalType(String type) {
+        if (type == null) return null;
+        String normalized = type.toLowerCase()
+                .replaceAll("\\([^)]*\\)", " ")
+                .replaceAll("(\\[\\s*\\d*\\s*])+$", "")
+                .replaceAll("\\s+", " ")
+                .trim();
+        return TYPES.get(normalized);
+    }
+
+    private String describe(SchemaRequest.Relationship rel) {
+        return rel.getSourceTableName() + " -> " + rel.getTargetTableName();
+    }
+
+    private SchemaDiagnostic error(String code, String message, String table, String field) {
+        return diagnostic("ERROR", code, message, table, field);
+    }
+
+    private SchemaDiagnostic warning(String code, String message, String table, String field) {
+        return diagnostic("WARNING", code, message, table, field);
+    }
+
+    private SchemaDiagnostic diagnostic(String severity, String code, String message, String table, String field) {
+        SchemaDiagnostic diagnostic = new SchemaDiagnostic();
+        diagnostic.setSeverity(severity);
+        diagnostic.setCode(code);
+        diagnostic.setMessage(message);
+        diagnostic.setTable(table);
+        diagnostic.setField(field);
+        return diagnostic;
+    }
+}
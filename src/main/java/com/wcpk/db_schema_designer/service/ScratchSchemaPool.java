@@ -0,0 +1,154 @@
+package com.wcpk.db_schema_designer.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of uniquely named scratch schemas in the application database used to
+ * validate generated DDL. Each validation leases its own schema, so concurrent
+ * requests never see each other's tables. Returned schemas are dropped and
+ * recreated in the background before they are handed out again.
+ */
+@Component
+@RequiredArgsConstructor
+public class ScratchSchemaPool {
+
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${scratch-schema.pool-size:0}")
+    private int configuredPoolSize;
+
+    @Value("${scratch-schema.lease-timeout-ms:30000}")
+    private long leaseTimeoutMs;
+
+    private final String prefix = "dbdesigner_scratch_" + UUID.randomUUID().toString().substring(0, 8) + "_";
+    private final BlockingQueue<String> available = new LinkedBlockingQueue<>();
+    private final Set<String> owned = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger poolSize = new AtomicInteger();
+    private final AtomicInteger nameSequence = new AtomicInteger();
+    private final ExecutorService resetExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public Lease lease() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMs);
+        String schema = available.poll();
+        try {
+            while (schema == null) {
+                // a failed background reset frees a slot without offering a schema, so
+                // waiters keep retrying creation instead of only waiting for a return
+                schema = createIfBelowLimit();
+                if (schema != null) {
+                    break;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("No scratch schema became available within " + leaseTimeoutMs + " ms");
+                }
+                schema = available.poll(Math.min(remaining, RETRY_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a scratch schema", e);
+        }
+        return new Lease(schema);
+    }
+
+    private String createIfBelowLimit() {
+        int limit = configuredPoolSize > 0 ? configuredPoolSize : Runtime.getRuntime().availableProcessors();
+        int current;
+        do {
+            current = poolSize.get();
+            if (current >= limit) {
+                return null;
+            }
+        } while (!poolSize.compareAndSet(current, current + 1));
+
+        String schema = prefix + nameSequence.getAndIncrement();
+        try {
+            reset(schema);
+        } catch (RuntimeException e) {
+            poolSize.decrementAndGet();
+            throw e;
+        }
+        owned.add(schema);
+        return schema;
+    }
+
+    private void reset(String schema) {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+        jdbcTemplate.execute("CREATE SCHEMA " + schema);
+    }
+
+    private void release(String schema, boolean clean) {
+        if (clean) {
+            available.offer(schema);
+            return;
+        }
+        resetExecutor.execute(() -> {
+            try {
+                reset(schema);
+                available.offer(schema);
+            } catch (RuntimeException e) {
+                // leave it out of the pool; a fresh schema is created on demand instead
+                owned.remove(schema);
+                poolSize.decrementAndGet();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void dropAll() {
+        resetExecutor.shutdown();
+        try {
+            resetExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (String schema : owned) {
+            try {
+                jdbcTemplate.execute("DROP SCHEMA IF EXISTS " + schema + " CASCADE");
+            } catch (RuntimeException ignored) {
+                // the database may already be gone during shutdown
+            }
+        }
+    }
+
+    public class Lease implements AutoCloseable {
+        private final String schema;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private volatile boolean clean;
+
+        private Lease(String schema) {
+            this.schema = schema;
+        }
+
+        public String getSchema() {
+            return schema;
+        }
+
+        /**
+         * Marks the schema as unchanged (e.g. all work was rolled back), so it
+         * goes straight back to the pool without being reset.
+         */
+        public void markClean() {
+            clean = true;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(schema, clean);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.wcpk.db_schema_designer.service;
+
+final class SqlIdentifiers {
+
+    private SqlIdentifiers() {
+    }
+
+    static String quote(String identifier) {
+        if (identifier == null || identifier.isBlank()) {
+            throw new IllegalArgumentException("Identifier must not be empty");
+        }
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    static String qualified(String schema, String name) {
+        return schema == null || schema.isBlank() ? quote(name) : quote(schema) + "." + quote(name);
+    }
+}
@@ -0,0 +1,153 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.QueryRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Typed form of the statements the query builder generates from a
+ * {@link QueryRequest}. Operators are classified and values split once here, so
+ * every statement kind shares the same WHERE semantics; the text is produced by
+ * {@link SqlQueryPrinter}.
+ */
+final class SqlQuery {
+
+    private SqlQuery() {
+    }
+
+    sealed interface Statement permits Select, Insert, Update, Delete {
+    }
+
+    /** A user value together with the column it is compared with or assigned to. */
+    record Literal(String column, String columnType, String value) {
+    }
+
+    enum Comparison {
+        NULL_TEST,
+        BETWEEN,
+        IN,
+        BINARY
+    }
+
+    /**
+     * @param connective logical operator joining the predicate to the previous one; ignored for the first
+     */
+    record Predicate(String connective, String column, String operator, Comparison comparison, List<Literal> operands) {
+    }
+
+    record OrderItem(String column, String direction) {
+    }
+
+    record Select(List<String> columns, String table, List<Predicate> where, List<String> groupBy,
+                  List<OrderItem> orderBy, Literal limit) implements Statement {
+    }
+
+    record Insert(String table, List<Literal> values) implements Statement {
+    }
+
+    record Update(String table, List<Literal> assignments, List<Predicate> where) implements Statement {
+    }
+
+    record Delete(String table, List<Predicate> where) implements Statement {
+    }
+
+    static Statement of(QueryRequest request) {
+        return switch (request.getType().toUpperCase(Locale.ROOT)) {
+            case "SELECT" -> select(request);
+            case "INSERT" -> insert(request);
+            case "DELETE" -> delete(request);
+            case "UPDATE" -> update(request);
+            default -> throw new IllegalArgumentException("Unsupported query type: " + request);
+        };
+    }
+
+    static Select select(QueryRequest request) {
+        List<OrderItem> orderBy = new ArrayList<>(size(request.getOrderBy()));
+        for (QueryRequest.OrderBy order : orEmpty(request.getOrderBy())) {
+            orderBy.add(new OrderItem(order.getColumn(), order.getDirection()));
+        }
+        Literal limit = request.getLimit() == null ? null
+                : new Literal("LIMIT", "bigint", String.valueOf(request.getLimit()));
+        return new Select(orEmpty(request.getColumns()), request.getTable(), where(request.getWhere()),
+                orEmpty(request.getGroupBy()), orderBy, limit);
+    }
+
+    static Insert insert(QueryRequest request) {
+        List<Literal> values = new ArrayList<>(size(request.getValues()));
+        for (QueryRequest.Value value : orEmpty(request.getValues())) {
+            if (value.getValue() != null && !value.getValue().isBlank()) {
+                values.add(new Literal(value.getColumn(), value.getColumnType(), value.getValue().trim()));
+            }
+        }
+        return new Insert(request.getTable(), values);
+    }
+
+    static Update update(QueryRequest request) {
+        List<Literal> assignments = new ArrayList<>(size(request.getValues()));
+        for (QueryRequest.Value value : orEmpty(request.getValues())) {
+            if (value.isInclude()) {
+                assignments.add(new Literal(value.getColumn(), value.getColumnType(), value.getValue()));
+            }
+        }
+        if (assignments.isEmpty()) {
+            throw new IllegalArgumentException("No columns selected for update.");
+        }
+        return new Update(request.getTable(), assignments, where(request.getWhere()));
+    }
+
+    static Delete delete(QueryRequest request) {
+        return new Delete(request.getTable(), where(request.getWhere()));
+    }
+
+    static List<Predicate> where(List<QueryRequest.WhereCondition> conditions) {
+        List<Predicate> predicates = new ArrayList<>(size(conditions));
+        for (QueryRequest.WhereCondition cond : orEmpty(conditions)) {
+            String operator = cond.getOperator();
+            Comparison comparison = comparison(operator);
+            List<Literal> operands = switch (comparison) {
+                case NULL_TEST -> List.of();
+                case BETWEEN -> List.of(literal(cond, cond.getValue()), literal(cond, cond.getValue2()));
+                case IN -> inList(cond);
+                case BINARY -> List.of(literal(cond, cond.getValue()));
+            };
+            predicates.add(new Predicate(cond.getLogicalOperator(), cond.getColumn(), operator, comparison, operands));
+        }
+        return predicates;
+    }
+
+    private static Comparison comparison(String operator) {
+        if ("IS NULL".equalsIgnoreCase(operator) || "IS NOT NULL".equalsIgnoreCase(operator)) {
+            return Comparison.NULL_TEST;
+        }
+        if ("BETWEEN".equalsIgnoreCase(operator)) {
+            return Comparison.BETWEEN;
+        }
+        if ("IN".equalsIgnoreCase(operator)) {
+            return Comparison.IN;
+        }
+        return Comparison.BINARY;
+    }
+
+    private static List<Literal> inList(QueryRequest.WhereCondition cond) {
+        String[] values = cond.getValue().split(",");
+        List<Literal> operands = new ArrayList<>(values.length);
+        for (String value : values) {
+            operands.add(literal(cond, value.trim()));
+        }
+        return operands;
+    }
+
+    private static Literal literal(QueryRequest.WhereCondition cond, String value) {
+        return new Literal(cond.getColumn(), cond.getColumnType(), value);
+    }
+
+    private static int size(List<?> list) {
+        return list == null ? 0 : list.size();
+    }
+
+    private static <T> List<T> orEmpty(List<T> list) {
+        return list == null ? List.of() : list;
+    }
+}
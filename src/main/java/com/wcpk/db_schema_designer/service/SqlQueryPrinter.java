@@ -0,0 +1,159 @@
+package com.wcpk.db_schema_designer.service;
+
+import java.util.List;
+
+/**
+ * Writes {@link SqlQuery} statements in a single pass into a buffer, either its
+ * own or one the caller is building a larger script in. Values
+ * go through a {@link ValueFormatter}, which either inlines them as literals or
+ * registers them as bind parameters; since the printer visits values in text
+ * order, placeholders are numbered as they appear.
+ */
+final class SqlQueryPrinter {
+
+    @FunctionalInterface
+    interface ValueFormatter {
+        void append(StringBuilder sql, SqlQuery.Literal literal);
+    }
+
+    private final StringBuilder sql;
+    private final ValueFormatter formatter;
+
+    SqlQueryPrinter(ValueFormatter formatter) {
+        this(new StringBuilder(256), formatter);
+    }
+
+    /** Prints into {@code sql}, after whatever it already holds. */
+    SqlQueryPrinter(StringBuilder sql, ValueFormatter formatter) {
+        this.sql = sql;
+        this.formatter = formatter;
+    }
+
+    /** Appends {@code statement} to the buffer and returns the text it added. */
+    String print(SqlQuery.Statement statement) {
+        int start = sql.length();
+        append(statement);
+        return sql.substring(start);
+    }
+
+    void append(SqlQuery.Statement statement) {
+        switch (statement) {
+            case SqlQuery.Select select -> appendSelect(select);
+            case SqlQuery.Insert insert -> appendInsert(insert);
+            case SqlQuery.Update update -> appendUpdate(update);
+            case SqlQuery.Delete delete -> appendDelete(delete);
+        }
+    }
+
+    void appendPredicates(List<SqlQuery.Predicate> predicates) {
+        for (int i = 0; i < predicates.size(); i++) {
+            SqlQuery.Predicate predicate = predicates.get(i);
+            if (i > 0) {
+                sql.append(' ').append(predicate.connective()).append(' ');
+            }
+            sql.append(predicate.column()).append(' ').append(predicate.operator());
+
+            List<SqlQuery.Literal> operands = predicate.operands();
+            switch (predicate.comparison()) {
+                case NULL_TEST -> {
+                }
+                case BETWEEN -> {
+                    sql.append(' ');
+                    formatter.append(sql, operands.get(0));
+                    sql.append(" AND ");
+                    formatter.append(sql, operands.get(1));
+                }
+                case IN -> {
+                    sql.append(" (");
+                    for (int j = 0; j < operands.size(); j++) {
+                        if (j > 0) sql.append(", ");
+                        formatter.append(sql, operands.get(j));
+                    }
+                    sql.append(')');
+                }
+                case BINARY -> {
+                    sql.append(' ');
+                    formatter.append(sql, operands.get(0));
+                }
+            }
+        }
+    }
+
+    void appendOrderBy(List<SqlQuery.OrderItem> orderBy) {
+        for (int i = 0; i < orderBy.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(orderBy.get(i).column()).append(' ').append(orderBy.get(i).direction());
+        }
+    }
+
+    private void appendSelect(SqlQuery.Select select) {
+        sql.append("SELECT ");
+        if (select.columns().isEmpty()) {
+            sql.append('*');
+        } else {
+            appendList(select.columns());
+        }
+
+        sql.append("\nFROM ").append(select.table());
+        appendWhere(select.where());
+
+        if (!select.groupBy().isEmpty()) {
+            sql.append("\nGROUP BY ");
+            appendList(select.groupBy());
+        }
+
+        if (!select.orderBy().isEmpty()) {
+            sql.append("\nORDER BY ");
+            appendOrderBy(select.orderBy());
+        }
+
+        if (select.limit() != null) {
+            sql.append("\nLIMIT ");
+            formatter.append(sql, select.limit());
+        }
+    }
+
+    private void appendInsert(SqlQuery.Insert insert) {
+        sql.append("INSERT INTO ").append(insert.table()).append(" (");
+        for (int i = 0; i < insert.values().size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(insert.values().get(i).column());
+        }
+        sql.append(")\nVALUES (");
+        for (int i = 0; i < insert.values().size(); i++) {
+            if (i > 0) sql.append(", ");
+            formatter.append(sql, insert.values().get(i));
+        }
+        sql.append(");");
+    }
+
+    private void appendUpdate(SqlQuery.Update update) {
+        sql.append("UPDATE ").append(update.table()).append("\nSET ");
+        for (int i = 0; i < update.assignments().size(); i++) {
+            SqlQuery.Literal assignment = update.assignments().get(i);
+            if (i > 0) sql.append(", ");
+            sql.append(assignment.column()).append(" = ");
+            formatter.append(sql, assignment);
+        }
+        appendWhere(update.where());
+    }
+
+    private void appendDelete(SqlQuery.Delete delete) {
+        sql.append("DELETE FROM ").append(delete.table());
+        appendWhere(delete.where());
+    }
+
+    private void appendWhere(List<SqlQuery.Predicate> where) {
+        if (!where.isEmpty()) {
+            sql.append("\nWHERE ");
+            appendPredicates(where);
+        }
+    }
+
+    private void appendList(List<String> items) {
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) sql.append(", ");
+            sql.append(items.get(i));
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.ScriptProgress;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs a SQL script statement by statement as it is tokenized. Consecutive
+ * plain statements are sent in JDBC batches so the driver pipelines them;
+ * queries, transaction control and COPY blocks run on their own. Memory use is
+ * bounded by the batch size, not by the script size.
+ */
+@Service
+public class SqlScriptExecutor {
+
+    @Value("${target-db.script.batch-size:100}")
+    private int batchSize;
+
+    private final Map<String, ScriptProgress> running = new ConcurrentHashMap<>();
+
+    /** A copy of the progress of the running script, or {@code null} if there is none. */
+    public ScriptProgress getProgress(String executionId) {
+        ScriptProgress progress = running.get(executionId);
+        if (progress == null) {
+            return null;
+        }
+        ScriptProgress snapshot = new ScriptProgress();
+        snapshot.setExecutionId(progress.getExecutionId());
+        snapshot.setStatus(progress.getStatus());
+        snapshot.setMessage(progress.getMessage());
+        snapshot.setStatementsExecuted(progress.getStatementsExecuted());
+        snapshot.setCurrentStatement(progress.getCurrentStatement());
+        snapshot.setCurrentLine(progress.getCurrentLine());
+        snapshot.setCopyRows(progress.getCopyRows());
+        snapshot.setElapsedMs(progress.getElapsedMs());
+        return snapshot;
+    }
+
+    /**
+     * Executes the script on the given statement and connection. Statements run
+     * in the connection's current commit mode; committing or rolling back a
+     * surrounding transaction is up to the caller. Outside autocommit, transaction
+     * control and statements that cannot run in a transaction block are rejected
+     * so they cannot end or break the caller's transaction. On failure the thrown
+     * exception names the failing statement and its line.
+     */
+    public ScriptProgress execute(String executionId, Connection conn, Statement stmt, Reader script)
+            throws SQLException, IOException {
+        ScriptProgress progress = new ScriptProgress();
+        progress.setExecutionId(executionId);
+        progress.setStatus("RUNNING");
+        if (executionId != null) {
+            running.put(executionId, progress);
+        }
+
+        long started = System.currentTimeMillis();
+        try {
+            boolean inTransaction = !conn.getAutoCommit();
+            SqlScriptReader reader = new SqlScriptReader(script);
+            List<SqlScriptReader.ParsedStatement> batch = new ArrayList<>();
+            SqlScriptReader.ParsedStatement statement;
+
+            while ((statement = reader.next()) != null) {
+                if (statement.kind() == SqlScriptReader.Kind.BATCHABLE) {
+                    stmt.addBatch(statement.sql());
+                    batch.add(statement);
+                    if (batch.size() >= batchSize) {
+                        flush(conn, stmt, batch, progress);
+                    }
+                    continue;
+                }
+
+                flush(conn, stmt, batch, progress);
+                markCurrent(progress, statement);
+                if (inTransaction && !SqlScriptReader.allowedInTransaction(statement)) {
+                    throw failure(statement, new SQLException(
+                            "cannot run inside the script's transaction; upload with commitPerBatch to run it", "25001"));
+                }
+                try {
+                    if (statement.kind() == SqlScriptReader.Kind.COPY_IN) {
+                        long rows = conn.unwrap(PGConnection.class).getCopyAPI()
+                                .copyIn(statement.sql(), reader.copyData());
+                        progress.setCopyRows(progress.getCopyRows() + rows);
+                    } else {
+                        stmt.execute(statement.sql());
+                    }
+                } catch (SQLException e) {
+                    throw failure(statement, e);
+                }
+                progress.setStatementsExecuted(progress.getStatementsExecuted() + 1);
+            }
+            flush(conn, stmt, batch, progress);
+
+            progress.setStatus("SUCCESS");
+            progress.setMessage(progress.getStatementsExecuted() + " statements executed");
+            return progress;
+        } catch (SQLException | IOException e) {
+            progress.setStatus("ERROR");
+            progress.setMessage(e.getMessage());
+            throw e;
+        } finally {
+            progress.setElapsedMs(System.currentTimeMillis() - started);
+            if (executionId != null) {
+                running.remove(executionId, progress);
+            }
+        }
+    }
+
+    private void flush(Connection conn, Statement stmt, List<SqlScriptReader.ParsedStatement> batch,
+                       ScriptProgress progress) throws SQLException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        markCurrent(progress, batch.get(0));
+        // inside a transaction every count of a failed batch is EXECUTE_FAILED, so the
+        // batch is rolled back and replayed one statement at a time to find the failure
+        Savepoint savepoint = conn.getAutoCommit() ? null : conn.setSavepoint();
+        try {
+            stmt.executeBatch();
+        } catch (BatchUpdateException e) {
+            if (savepoint == null) {
+                int failed = Math.min(firstFailure(e.getUpdateCounts()), batch.size() - 1);
+                throw failure(batch.get(failed), e.getNextException() != null ? e.getNextException() : e);
+            }
+            conn.rollback(savepoint);
+            stmt.clearBatch();
+            for (SqlScriptReader.ParsedStatement statement : batch) {
+                markCurrent(progress, statement);
+                try {
+                    stmt.execute(statement.sql());
+                } catch (SQLException single) {
+                    throw failure(statement, single);
+                }
+            }
+        } finally {
+            stmt.clearBatch();
+        }
+        if (savepoint != null) {
+            conn.releaseSavepoint(savepoint);
+        }
+        progress.setStatementsExecuted(progress.getStatementsExecuted() + batch.size());
+        batch.clear();
+    }
+
+    private void markCurrent(ScriptProgress progress, SqlScriptReader.ParsedStatement statement) {
+        progress.setCurrentStatement(statement.index() + 1);
+        progress.setCurrentLine(statement.line());
+    }
+
+    private SQLException failure(SqlScriptReader.ParsedStatement statement, SQLException e) {
+        return new SQLException("Statement " + (statement.index() + 1) + " (line " + statement.line() + "): "
+                + e.getMessage(), e.getSQLState(), e);
+    }
+
+    private int firstFailure(int[] counts) {
+        if (counts == null) return 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == Statement.EXECUTE_FAILED) return i;
+        }
+        return counts.length;
+    }
+}
@@ -0,0 +1,351 @@
+package com.wcpk.db_schema_designer.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Locale;
+
+/**
+ * Incremental SQL script tokenizer. Statements are read one at a time from the
+ * underlying {@link Reader}, so only the current statement is held in memory.
+ * <p>
+ * Semicolons inside string literals (including {@code E''} strings), quoted
+ * identifiers, dollar-quoted bodies, line comments and nested block comments do
+ * not end a statement. Data following {@code COPY ... FROM STDIN} is not parsed
+ * as SQL; it is exposed through {@link #copyData()} up to the {@code \.} line.
+ * psql meta-command lines (starting with a backslash) are skipped.
+ */
+final class SqlScriptReader {
+
+    enum Kind {
+        /** Can be sent as part of a JDBC batch. */
+        BATCHABLE,
+        /** May return rows, so it has to run on its own. */
+        QUERY,
+        /** BEGIN/COMMIT and statements that refuse to run inside a transaction block. */
+        STANDALONE,
+        /** COPY ... FROM STDIN, followed by inline data. */
+        COPY_IN
+    }
+
+    record ParsedStatement(int index, long line, String sql, Kind kind) {
+    }
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long line = 1;
+    private int index;
+    private CopyDataReader pendingCopy;
+
+    SqlScriptReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Returns the next statement without its trailing semicolon, or {@code null}
+     * at the end of the script. Unread COPY data of the previous statement is skipped.
+     */
+    ParsedStatement next() throws IOException {
+        if (pendingCopy != null) {
+            pendingCopy.skipRemaining();
+            pendingCopy = null;
+        }
+
+        StringBuilder sql = new StringBuilder();
+        long startLine = line;
+        int c;
+        while ((c = read()) != -1) {
+            if (sql.isEmpty()) {
+                // whitespace and empty statements such as ";;" before a statement are dropped
+                if (Character.isWhitespace(c) || c == ';') continue;
+                if (c == '\\') {
+                    skipLine();
+                    continue;
+                }
+                if (c == '-' && peek() == '-') {
+                    skipLine();
+                    continue;
+                }
+                if (c == '/' && peek() == '*') {
+                    read();
+                    skipBlockComment(null);
+                    continue;
+                }
+                startLine = line;
+            }
+
+            switch (c) {
+                case ';' -> {
+                    return finish(sql, startLine);
+                }
+                case '\'' -> {
+                    boolean escapes = isEscapeStringPrefix(sql);
+                    sql.append((char) c);
+                    readQuoted(sql, '\'', escapes);
+                }
+                case '"' -> {
+                    sql.append((char) c);
+                    readQuoted(sql, '"', false);
+                }
+                case '$' -> {
+                    sql.append((char) c);
+                    if (!endsWithIdentifierChar(sql, sql.length() - 1)) {
+                        readDollarQuoted(sql);
+                    }
+                }
+                case '-' -> {
+                    if (peek() == '-') {
+                        skipLine();
+                        sql.append('\n');
+                    } else {
+                        sql.append((char) c);
+                    }
+                }
+                case '/' -> {
+                    if (peek() == '*') {
+                        read();
+                        sql.append("/*");
+                        skipBlockComment(sql);
+                    } else {
+                        sql.append((char) c);
+                    }
+                }
+                default -> sql.append((char) c);
+            }
+        }
+
+        String tail = sql.toString().trim();
+        return tail.isEmpty() ? null : finish(sql, startLine);
+    }
+
+    /**
+     * Inline data of the COPY statement returned by the last {@link #next()} call,
+     * without the terminating {@code \.} line.
+     */
+    Reader copyData() {
+        if (pendingCopy == null) {
+            throw new IllegalStateException("The last statement was not COPY ... FROM STDIN");
+        }
+        return pendingCopy;
+    }
+
+    private ParsedStatement finish(StringBuilder sql, long startLine) throws IOException {
+        String text = sql.toString().trim();
+        Kind kind = classify(text);
+        if (kind == Kind.COPY_IN) {
+            skipLine();
+            pendingCopy = new CopyDataReader();
+        }
+        return new ParsedStatement(index++, startLine, text, kind);
+    }
+
+    private void readQuoted(StringBuilder sql, char quote, boolean escapes) throws IOException {
+        int c;
+        while ((c = read()) != -1) {
+            sql.append((char) c);
+            if (escapes && c == '\\') {
+                int escaped = read();
+                if (escaped != -1) sql.append((char) escaped);
+            } else if (c == quote) {
+                if (peek() != quote) return;
+                sql.append((char) read());
+            }
+        }
+    }
+
+    private void readDollarQuoted(StringBuilder sql) throws IOException {
+        int tagStart = sql.length() - 1;
+        int c = peek();
+        if (c != '$' && !Character.isLetter(c) && c != '_') {
+            return;
+        }
+        while ((c = peek()) != -1 && c != '$' && isIdentifierChar(c)) {
+            sql.append((char) read());
+        }
+        if (peek() != '$') {
+            return;
+        }
+        sql.append((char) read());
+
+        String tag = sql.substring(tagStart);
+        int bodyStart = sql.length();
+        while ((c = read()) != -1) {
+            sql.append((char) c);
+            if (c == '$' && sql.length() - tag.length() >= bodyStart && endsWith(sql, tag)) {
+                return;
+            }
+        }
+    }
+
+    private static boolean endsWith(StringBuilder sql, String suffix) {
+        int start = sql.length() - suffix.length();
+        for (int i = 0; i < suffix.length(); i++) {
+            if (sql.charAt(start + i) != suffix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void skipBlockComment(StringBuilder sql) throws IOException {
+        int depth = 1;
+        int c;
+        while (depth > 0 && (c = read()) != -1) {
+            if (sql != null) sql.append((char) c);
+            if (c == '/' && peek() == '*') {
+                depth++;
+                if (sql != null) sql.append((char) read()); else read();
+            } else if (c == '*' && peek() == '/') {
+                depth--;
+                if (sql != null) sql.append((char) read()); else read();
+            }
+        }
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != '\n') {
+            // discard
+        }
+    }
+
+    private boolean isEscapeStringPrefix(StringBuilder sql) {
+        int last = sql.length() - 1;
+        return last >= 0 && (sql.charAt(last) == 'E' || sql.charAt(last) == 'e')
+                && !endsWithIdentifierChar(sql, last);
+    }
+
+    private boolean endsWithIdentifierChar(StringBuilder sql, int end) {
+        return end > 0 && isIdentifierChar(sql.charAt(end - 1));
+    }
+
+    private static boolean isIdentifierChar(int c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    static Kind classify(String sql) {
+        String upper = sql.toUpperCase(Locale.ROOT);
+        String first = firstWord(upper);
+        return switch (first) {
+            case "SELECT", "WITH", "VALUES", "TABLE", "SHOW", "EXPLAIN", "FETCH" -> Kind.QUERY;
+            case "BEGIN", "START", "COMMIT", "END", "ROLLBACK", "SAVEPOINT", "RELEASE",
+                 "VACUUM", "CLUSTER", "CHECKPOINT" -> Kind.STANDALONE;
+            case "COPY" -> upper.matches("(?s).*\\bFROM\\s+STDIN\\b.*") ? Kind.COPY_IN : Kind.QUERY;
+            default -> upper.contains("CONCURRENTLY")
+                    || upper.matches("(?s)^(CREATE|DROP|ALTER)\\s+(DATABASE|TABLESPACE|SYSTEM)\\b.*")
+                    ? Kind.STANDALONE
+                    : Kind.BATCHABLE;
+        };
+    }
+
+    /**
+     * Whether {@code statement} can run inside a transaction the caller owns.
+     * Savepoints can; transaction control and statements that refuse to run in
+     * a transaction block cannot.
+     */
+    static boolean allowedInTransaction(ParsedStatement statement) {
+        if (statement.kind() != Kind.STANDALONE) {
+            return true;
+        }
+        String upper = statement.sql().toUpperCase(Locale.ROOT);
+        return switch (firstWord(upper)) {
+            case "SAVEPOINT", "RELEASE" -> true;
+            case "ROLLBACK" -> upper.matches("(?s)^ROLLBACK\\s+(WORK\\s+|TRANSACTION\\s+)?TO\\b.*");
+            default -> false;
+        };
+    }
+
+    /** Drops trailing semicolons so a statement can be wrapped, e.g. in a cursor or COPY. */
+    static String stripTrailingSemicolons(String sql) {
+        int end = sql.length();
+        while (true) {
+            while (end > 0 && Character.isWhitespace(sql.charAt(end - 1))) end--;
+            if (end == 0 || sql.charAt(end - 1) != ';') break;
+            end--;
+        }
+        return sql.substring(0, end).trim();
+    }
+
+    private static String firstWord(String sql) {
+        int end = 0;
+        while (end < sql.length() && Character.isLetter(sql.charAt(end))) end++;
+        return sql.substring(0, end);
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        char c = buffer[pos++];
+        if (c == '\n') line++;
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos];
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buffer, 0, buffer.length);
+        if (n <= 0) {
+            return false;
+        }
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    /**
+     * Streams COPY data line by line from the script until the {@code \.}
+     * terminator or the end of input.
+     */
+    private class CopyDataReader extends Reader {
+        private final StringBuilder current = new StringBuilder();
+        private int offset;
+        private boolean done;
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (offset == current.length() && !nextLine()) {
+                return -1;
+            }
+            int n = Math.min(len, current.length() - offset);
+            current.getChars(offset, offset + n, cbuf, off);
+            offset += n;
+            return n;
+        }
+
+        private boolean nextLine() throws IOException {
+            if (done) return false;
+            current.setLength(0);
+            offset = 0;
+            int c;
+            while ((c = SqlScriptReader.this.read()) != -1) {
+                current.append((char) c);
+                if (c == '\n') break;
+            }
+            String text = current.toString();
+            if (text.isEmpty() || text.equals("\\.\n") || text.equals("\\.\r\n") || text.equals("\\.")) {
+                done = true;
+                current.setLength(0);
+                return false;
+            }
+            return true;
+        }
+
+        void skipRemaining() throws IOException {
+            while (nextLine()) {
+                // discard
+            }
+        }
+
+        @Override
+        public void close() {
+            // the script reader owns the underlying stream
+        }
+    }
+}
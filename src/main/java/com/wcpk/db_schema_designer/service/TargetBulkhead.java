@@ -0,0 +1,184 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.BulkheadStats;
+import com.wcpk.db_schema_designer.dto.DatabaseConnectionRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Limits how many requests may work against one target database at a time, so
+ * that a single slow database cannot occupy every request thread. Callers beyond
+ * the limit wait in a bounded queue; once the queue is full they are rejected.
+ */
+@Component
+public class TargetBulkhead {
+
+    @Value("${target-db.bulkhead.max-concurrent:5}")
+    private int maxConcurrent;
+
+    @Value("${target-db.bulkhead.max-queue:20}")
+    private int maxQueue;
+
+    @Value("${target-db.bulkhead.max-wait-ms:10000}")
+    private long maxWaitMs;
+
+    @Value("${target-db.bulkhead.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    @Value("${target-db.bulkhead.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    private final Map<TargetDataSourceRegistry.TargetKey, Compartment> compartments = new ConcurrentHashMap<>();
+
+    public <T> T call(DatabaseConnectionRequest dcr, Supplier<T> operation) {
+        Permit permit = enter(dcr);
+        try {
+            return operation.get();
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Takes a slot for the target of {@code dcr} that is held until the returned
+     * permit is closed, possibly on another thread. Used for work that outlives the
+     * handler method, such as a response body written after the headers.
+     */
+    public Permit enter(DatabaseConnectionRequest dcr) {
+        TargetDataSourceRegistry.TargetKey key = TargetDataSourceRegistry.TargetKey.of(dcr);
+        Compartment compartment = register(key);
+
+        try {
+            acquire(key, compartment);
+        } catch (RuntimeException e) {
+            compartment.users.decrementAndGet();
+            throw e;
+        }
+        return new Permit(compartment);
+    }
+
+    /**
+     * Takes a slot for the target of {@code dcr} only if one is free right now,
+     * for optional extra work such as a query run in parallel by a request that
+     * already holds a permit. Returns {@code null} instead of waiting.
+     */
+    public Permit tryEnter(DatabaseConnectionRequest dcr) {
+        Compartment compartment = register(TargetDataSourceRegistry.TargetKey.of(dcr));
+        if (!compartment.permits.tryAcquire()) {
+            compartment.users.decrementAndGet();
+            return null;
+        }
+        compartment.inFlight.incrementAndGet();
+        return new Permit(compartment);
+    }
+
+    private Compartment register(TargetDataSourceRegistry.TargetKey key) {
+        // registering as a user happens under the map's lock for the key, so the
+        // cleanup cannot drop a compartment that a caller is about to wait on
+        return compartments.compute(key, (k, existing) -> {
+            Compartment current = existing != null ? existing : new Compartment(maxConcurrent);
+            current.users.incrementAndGet();
+            current.lastUsed = System.currentTimeMillis();
+            return current;
+        });
+    }
+
+    public List<BulkheadStats> getStats() {
+        List<BulkheadStats> stats = new ArrayList<>();
+        compartments.forEach((key, compartment) -> {
+            BulkheadStats s = new BulkheadStats();
+            s.setTarget(key.toString());
+            s.setMaxConcurrent(maxConcurrent);
+            s.setMaxQueue(maxQueue);
+            s.setInFlight(compartment.inFlight.get());
+            s.setQueued(compartment.queued.get());
+            s.setRejected(compartment.rejected.get());
+            stats.add(s);
+        });
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${target-db.bulkhead.cleanup-interval-ms:300000}")
+    public void removeIdleCompartments() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        for (TargetDataSourceRegistry.TargetKey key : compartments.keySet()) {
+            compartments.computeIfPresent(key, (k, c) -> c.users.get() == 0 && c.lastUsed < cutoff ? null : c);
+        }
+    }
+
+    private void acquire(TargetDataSourceRegistry.TargetKey key, Compartment compartment) {
+        if (compartment.permits.tryAcquire()) {
+            compartment.inFlight.incrementAndGet();
+            return;
+        }
+
+        if (compartment.queued.incrementAndGet() > maxQueue) {
+            compartment.queued.decrementAndGet();
+            throw reject(key, compartment);
+        }
+
+        boolean acquired;
+        try {
+            acquired = compartment.permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            compartment.queued.decrementAndGet();
+        }
+
+        if (!acquired) {
+            throw reject(key, compartment);
+        }
+        compartment.inFlight.incrementAndGet();
+    }
+
+    private TargetOverloadedException reject(TargetDataSourceRegistry.TargetKey key, Compartment compartment) {
+        compartment.rejected.incrementAndGet();
+        return new TargetOverloadedException("Too many concurrent requests for " + key + ", retry later.", retryAfterSeconds);
+    }
+
+    public static final class Permit implements AutoCloseable {
+        private final Compartment compartment;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Compartment compartment) {
+            this.compartment = compartment;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                compartment.inFlight.decrementAndGet();
+                compartment.permits.release();
+                compartment.users.decrementAndGet();
+            }
+        }
+    }
+
+    private static class Compartment {
+        private final Semaphore permits;
+        // callers between entering and leaving call(), whether queued, running or about to be rejected
+        private final AtomicInteger users = new AtomicInteger();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger queued = new AtomicInteger();
+        private final AtomicLong rejected = new AtomicLong();
+        private volatile long lastUsed;
+
+        private Compartment(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.DatabaseConnectionRequest;
+import com.wcpk.db_schema_designer.dto.PoolStats;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.pool.HikariPool;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Keeps one connection pool per user target database so that requests reuse
+ * physical connections instead of opening a new one on every call. Pools that
+ * are replaced or evicted while connections are still borrowed are retired and
+ * only closed once they go idle, so in-flight work is never cut off.
+ */
+@Service
+public class TargetDataSourceRegistry {
+
+    @Value("${target-db.pool.max-size:5}")
+    private int maxPoolSize;
+
+    @Value("${target-db.pool.max-pools:50}")
+    private int maxPools;
+
+    @Value("${target-db.pool.connection-idle-timeout-ms:60000}")
+    private long connectionIdleTimeoutMs;
+
+    @Value("${target-db.pool.pool-idle-timeout-ms:600000}")
+    private long poolIdleTimeoutMs;
+
+    @Value("${target-db.pool.connection-timeout-ms:10000}")
+    private long connectionTimeoutMs;
+
+    @Value("${target-db.pool.leak-detection-threshold-ms:660000}")
+    private long leakDetectionThresholdMs;
+
+    private final Map<TargetKey, PoolEntry> pools = new LinkedHashMap<>(16, 0.75f, true);
+    // guarded by pools
+    private final List<HikariDataSource> retired = new ArrayList<>();
+
+    public Connection getConnection(DatabaseConnectionRequest dcr) throws SQLException {
+        return getDataSource(dcr).getConnection();
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public DataSource getDataSource(DatabaseConnectionRequest dcr) throws SQLException {
+        TargetKey key = TargetKey.of(dcr);
+        String passwordHash = hashPassword(dcr.getPassword());
+
+        synchronized (pools) {
+            PoolEntry entry = pools.get(key);
+            if (entry != null && entry.passwordHash.equals(passwordHash)) {
+                entry.lastUsed = System.currentTimeMillis();
+                return entry.dataSource;
+            }
+        }
+
+        // Opening the first connection can be slow, so the pool is built outside the lock.
+        HikariDataSource created = createPool(key, dcr.getPassword());
+        List<HikariDataSource> toClose = new ArrayList<>();
+        PoolEntry entry;
+
+        synchronized (pools) {
+            entry = pools.get(key);
+            if (entry != null && entry.passwordHash.equals(passwordHash)) {
+                toClose.add(created);
+            } else {
+                if (entry != null) {
+                    retire(entry.dataSource, toClose);
+                }
+                entry = new PoolEntry(created, passwordHash);
+                pools.put(key, entry);
+                Iterator<PoolEntry> eldest = pools.values().iterator();
+                while (pools.size() > maxPools) {
+                    retire(eldest.next().dataSource, toClose);
+                    eldest.remove();
+                }
+            }
+            entry.lastUsed = System.currentTimeMillis();
+        }
+
+        toClose.forEach(HikariDataSource::close);
+        return entry.dataSource;
+    }
+
+    public List<PoolStats> getStats() {
+        List<PoolStats> stats = new ArrayList<>();
+        synchronized (pools) {
+            for (Map.Entry<TargetKey, PoolEntry> e : pools.entrySet()) {
+                HikariPoolMXBean pool = e.getValue().dataSource.getHikariPoolMXBean();
+                PoolStats s = new PoolStats();
+                s.setTarget(e.getKey().toString());
+                s.setMaxSize(maxPoolSize);
+                s.setLastUsed(e.getValue().lastUsed);
+                if (pool != null) {
+                    s.setActiveConnections(pool.getActiveConnections());
+                    s.setIdleConnections(pool.getIdleConnections());
+                    s.setTotalConnections(pool.getTotalConnections());
+                    s.setThreadsAwaitingConnection(pool.getThreadsAwaitingConnection());
+                }
+                stats.add(s);
+            }
+        }
+        return stats;
+    }
+
+    @Scheduled(fixedDelayString = "${target-db.pool.eviction-interval-ms:60000}")
+    public void evictIdlePools() {
+        long cutoff = System.currentTimeMillis() - poolIdleTimeoutMs;
+        List<HikariDataSource> toClose = new ArrayList<>();
+
+        synchronized (pools) {
+            Iterator<PoolEntry> it = pools.values().iterator();
+            while (it.hasNext()) {
+                PoolEntry entry = it.next();
+                if (entry.lastUsed < cutoff && !isBusy(entry.dataSource)) {
+                    toClose.add(entry.dataSource);
+                    it.remove();
+                }
+            }
+
+            Iterator<HikariDataSource> old = retired.iterator();
+            while (old.hasNext()) {
+                HikariDataSource dataSource = old.next();
+                if (!isBusy(dataSource)) {
+                    toClose.add(dataSource);
+                    old.remove();
+                }
+            }
+        }
+
+        toClose.forEach(HikariDataSource::close);
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        List<HikariDataSource> toClose;
+        synchronized (pools) {
+            toClose = new ArrayList<>(retired);
+            pools.values().forEach(e -> toClose.add(e.dataSource));
+            pools.clear();
+            retired.clear();
+        }
+        toClose.forEach(HikariDataSource::close);
+    }
+
+    /** Closes {@code dataSource} now if it is idle, otherwise on a later eviction pass. Caller holds the lock. */
+    private void retire(HikariDataSource dataSource, List<HikariDataSource> toClose) {
+        if (isBusy(dataSource)) {
+            retired.add(dataSource);
+        } else {
+            toClose.add(dataSource);
+        }
+    }
+
+    private static boolean isBusy(HikariDataSource dataSource) {
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null && (pool.getActiveConnections() > 0 || pool.getThreadsAwaitingConnection() > 0);
+    }
+
+    private HikariDataSource createPool(TargetKey key, String password) throws SQLException {
+        HikariConfig config = new HikariConfig();
+        config.setDriverClassName("org.postgresql.Driver");
+        config.setJdbcUrl(key.jdbcUrl());
+        config.setUsername(key.username());
+        config.setPassword(password);
+        config.setPoolName("target-" + key);
+        config.setMaximumPoolSize(maxPoolSize);
+        config.setMinimumIdle(0);
+        config.setIdleTimeout(connectionIdleTimeoutMs);
+        config.setConnectionTimeout(connectionTimeoutMs);
+        config.setLeakDetectionThreshold(leakDetectionThresholdMs);
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
+
+        try {
+            return new HikariDataSource(config);
+        } catch (HikariPool.PoolInitializationException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException sqlEx) {
+                throw sqlEx;
+            }
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private static String hashPassword(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class PoolEntry {
+        private final HikariDataSource dataSource;
+        private final String passwordHash;
+        private volatile long lastUsed;
+
+        private PoolEntry(HikariDataSource dataSource, String passwordHash) {
+            this.dataSource = dataSource;
+            this.passwordHash = passwordHash;
+        }
+    }
+
+    record TargetKey(String host, int port, String databaseName, String username) {
+
+        static TargetKey of(DatabaseConnectionRequest dcr) {
+            return new TargetKey(dcr.getHost(), dcr.getPort(), dcr.getDatabaseName(), dcr.getUsername());
+        }
+
+        String jdbcUrl() {
+            return "jdbc:postgresql://" + host + ":" + port + "/" + databaseName;
+        }
+
+        @Override
+        public String toString() {
+            return username + "@" + host + ":" + port + "/" + databaseName;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.wcpk.db_schema_designer.service;
+
+import lombok.Getter;
+
+@Getter
+public class TargetOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TargetOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
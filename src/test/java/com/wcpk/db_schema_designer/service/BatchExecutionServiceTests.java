@@ -0,0 +1,142 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.StatementResult;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchExecutionServiceTests {
+
+    /**
+     * Stands in for a transaction: statements that ran are kept in {@code applied},
+     * and rolling back to a savepoint drops what ran after it.
+     */
+    private static final class FakeTransaction {
+        private final List<Integer> applied = new ArrayList<>();
+        private final Set<Integer> failing;
+        private final int successCount;
+
+        private FakeTransaction(Set<Integer> failing, int successCount) {
+            this.failing = failing;
+            this.successCount = successCount;
+        }
+
+        private Connection connection() {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "setSavepoint" -> savepoint(applied.size());
+                        case "rollback" -> {
+                            applied.subList(((Savepoint) args[0]).getSavepointId(), applied.size()).clear();
+                            yield null;
+                        }
+                        case "releaseSavepoint" -> null;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        private static Savepoint savepoint(int id) {
+            return (Savepoint) Proxy.newProxyInstance(Savepoint.class.getClassLoader(), new Class<?>[]{Savepoint.class},
+                    (proxy, method, args) -> id);
+        }
+
+        /** Behaves like pgjdbc inside a transaction: on failure every count of the batch is EXECUTE_FAILED. */
+        private int[] run(int from, int to) throws SQLException {
+            int[] counts = new int[to - from];
+            for (int i = from; i < to; i++) {
+                if (failing.contains(i)) {
+                    int[] failed = new int[to - from];
+                    Arrays.fill(failed, Statement.EXECUTE_FAILED);
+                    BatchUpdateException e = new BatchUpdateException("batch entry " + (i - from) + " failed", failed);
+                    e.setNextException(new SQLException("statement " + i + " failed", "23505"));
+                    throw e;
+                }
+                applied.add(i);
+                counts[i - from] = successCount;
+            }
+            return counts;
+        }
+    }
+
+    private static List<StatementResult> results(int count) {
+        List<StatementResult> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(new StatementResult(i));
+        }
+        return results;
+    }
+
+    @Test
+    void continueOnErrorAttributesFailuresAndKeepsTheOtherStatements() throws SQLException {
+        FakeTransaction tx = new FakeTransaction(Set.of(3, 5), 1);
+        List<StatementResult> results = results(7);
+
+        BatchExecutionService.runBatches(tx.connection(), 0, 7, tx::run, results, true);
+
+        assertEquals(List.of(0, 1, 2, 4, 6), tx.applied);
+        assertEquals(List.of("SUCCESS", "SUCCESS", "SUCCESS", "ERROR", "SUCCESS", "ERROR", "SUCCESS"),
+                results.stream().map(StatementResult::getStatus).toList());
+        assertEquals("statement 3 failed", results.get(3).getMessage());
+        assertEquals("23505", results.get(3).getSqlState());
+        assertEquals("statement 5 failed", results.get(5).getMessage());
+    }
+
+    @Test
+    void allOrNothingStopsAtTheFailingStatement() {
+        FakeTransaction tx = new FakeTransaction(Set.of(2), 1);
+        List<StatementResult> results = results(5);
+
+        assertThrows(BatchUpdateException.class,
+                () -> BatchExecutionService.runBatches(tx.connection(), 0, 5, tx::run, results, false));
+
+        assertEquals(List.of("SUCCESS", "SUCCESS", "ERROR", "NOT_EXECUTED", "NOT_EXECUTED"),
+                results.stream().map(StatementResult::getStatus).toList());
+        assertEquals("statement 2 failed", results.get(2).getMessage());
+    }
+
+    @Test
+    void mapsIndexesRelativeToTheRangeOffset() throws SQLException {
+        FakeTransaction tx = new FakeTransaction(Set.of(4), 1);
+        List<StatementResult> results = results(6);
+
+        BatchExecutionService.runBatches(tx.connection(), 3, 6, tx::run, results, true);
+
+        assertEquals(List.of(3, 5), tx.applied);
+        assertEquals(List.of("NOT_EXECUTED", "NOT_EXECUTED", "NOT_EXECUTED", "SUCCESS", "ERROR", "SUCCESS"),
+                results.stream().map(StatementResult::getStatus).toList());
+    }
+
+    @Test
+    void reportsNoCountForSuccessNoInfo() throws SQLException {
+        FakeTransaction tx = new FakeTransaction(Set.of(), Statement.SUCCESS_NO_INFO);
+        List<StatementResult> results = results(2);
+
+        BatchExecutionService.runBatches(tx.connection(), 0, 2, tx::run, results, false);
+
+        assertEquals("SUCCESS", results.get(0).getStatus());
+        assertNull(results.get(0).getUpdateCount());
+    }
+
+    @Test
+    void keepsDmlWithReturningOutOfBatches() {
+        assertTrue(BatchExecutionService.returnsRows("insert into t (a) values (1) returning id"));
+        assertTrue(BatchExecutionService.returnsRows("UPDATE t SET a = 1\nRETURNING *"));
+        assertTrue(BatchExecutionService.returnsRows("  with x as (select 1) select * from x"));
+        assertFalse(BatchExecutionService.returnsRows("insert into returning_log (a) values (1)"));
+        assertFalse(BatchExecutionService.returnsRows("create table t (returning int)"));
+    }
+}
@@ -0,0 +1,120 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.ExecuteCodeResponse;
+import com.wcpk.db_schema_designer.dto.ResultColumn;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryResultEncoderTests {
+
+    private final BinaryResultEncoder encoder = new BinaryResultEncoder();
+
+    private static ExecuteCodeResponse response(List<Object[]> rows) {
+        ExecuteCodeResponse response = new ExecuteCodeResponse("SUCCESS", "SELECT executed successfully", null, true, "RESULT_SET");
+        response.setExecutionId("exec-1");
+        response.setTruncated(true);
+        response.setColumns(List.of(new ResultColumn("id", "int8"), new ResultColumn("name", "text"),
+                new ResultColumn("price", "numeric"), new ResultColumn("ratio", "float8"),
+                new ResultColumn("active", "bool"), new ResultColumn("data", "bytea")));
+        response.setRows(rows);
+        return response;
+    }
+
+    private static DataInputStream encode(BinaryResultEncoder encoder, ExecuteCodeResponse response) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        encoder.encode(response, out);
+        return new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        return switch (in.readByte()) {
+            case 0 -> null;
+            case 1 -> in.readLong();
+            case 2 -> in.readDouble();
+            case 3 -> readString(in);
+            case 4 -> in.readBoolean();
+            case 5 -> in.readNBytes(in.readInt());
+            default -> throw new IllegalStateException("Unknown tag");
+        };
+    }
+
+    @Test
+    void roundTripsHeaderColumnsAndCells() throws IOException {
+        List<Object[]> rows = List.of(
+                new Object[]{7, "Zoë", new BigDecimal("1.50"), 0.25d, true, new byte[]{1, 2, 3}},
+                new Object[]{Long.MAX_VALUE, null, null, 1.5f, false, new byte[0]});
+
+        DataInputStream in = encode(encoder, response(rows));
+
+        assertEquals("DBR1", new String(in.readNBytes(4), StandardCharsets.US_ASCII));
+        assertEquals("SUCCESS", readString(in));
+        assertEquals("SELECT executed successfully", readString(in));
+        assertEquals("RESULT_SET", readString(in));
+        assertEquals("exec-1", readString(in));
+        assertTrue(in.readBoolean());
+
+        int columnCount = in.readInt();
+        List<String> columns = new ArrayList<>();
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(readString(in) + ":" + readString(in));
+        }
+        assertEquals(List.of("id:int8", "name:text", "price:numeric", "ratio:float8", "active:bool", "data:bytea"), columns);
+
+        assertEquals(2, in.readInt());
+        Object[] first = new Object[columnCount];
+        Object[] second = new Object[columnCount];
+        for (int i = 0; i < columnCount; i++) first[i] = readValue(in);
+        for (int i = 0; i < columnCount; i++) second[i] = readValue(in);
+
+        assertEquals(Arrays.asList(7L, "Zoë", "1.50", 0.25d, true), Arrays.asList(first).subList(0, 5));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) first[5]);
+        assertEquals(Arrays.asList(Long.MAX_VALUE, null, null, 1.5d, false), Arrays.asList(second).subList(0, 5));
+        assertArrayEquals(new byte[0], (byte[]) second[5]);
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void encodesMissingColumnsAndRowsAsEmpty() throws IOException {
+        ExecuteCodeResponse response = new ExecuteCodeResponse("ERROR", "boom", null, false, "ERROR");
+
+        DataInputStream in = encode(encoder, response);
+
+        in.skipNBytes(4);
+        assertEquals("ERROR", readString(in));
+        assertEquals("boom", readString(in));
+        assertEquals("ERROR", readString(in));
+        assertNull(readString(in));
+        assertFalse(in.readBoolean());
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void picksLayoutFromAcceptHeader() {
+        assertEquals(ResultLayout.MAPS, ResultLayout.fromAccept(null));
+        assertEquals(ResultLayout.MAPS, ResultLayout.fromAccept("application/json"));
+        assertEquals(ResultLayout.ROWS, ResultLayout.fromAccept("application/vnd.dbdesigner.rows+json, */*"));
+        assertEquals(ResultLayout.COLUMNS, ResultLayout.fromAccept("application/vnd.dbdesigner.columns+json"));
+    }
+}
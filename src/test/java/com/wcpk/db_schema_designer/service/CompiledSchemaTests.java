@@ -0,0 +1,32 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.field;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.relationship;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.schema;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.tableOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CompiledSchemaTests {
+
+    @Test
+    void indexesTablesAndPrimaryKeys() {
+        SchemaRequest.Relationship rel = relationship("one-to-many", "Orders", "line");
+
+        CompiledSchema schema = CompiledSchema.compile(schema(List.of(
+                tableOf("orders", field("id", "bigint", true), field("placed", "date", false)),
+                tableOf("line", field("order_id", "bigint", true), field("no", "int", true)),
+                tableOf("audit", field("at", "timestamp", false))), List.of(rel)));
+
+        assertEquals("bigint", schema.primaryKey("ORDERS").getType());
+        assertEquals(List.of("order_id", "no"),
+                schema.table("line").primaryKey().stream().map(SchemaRequest.Field::getName).toList());
+        assertEquals(List.of(rel), schema.relationships());
+        assertNull(schema.table("audit").primaryKeyField());
+    }
+}
@@ -0,0 +1,79 @@
+package com.wcpk.db_schema_designer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CopyRowScannerTests {
+
+    /** Splits {@code data} into rows, feeding the scanner {@code chunkSize} bytes at a time. */
+    private static List<String> rows(CopyRowScanner scanner, String data, int chunkSize) {
+        byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+        List<String> rows = new ArrayList<>();
+        int rowStart = 0;
+        for (int chunk = 0; chunk < bytes.length; chunk += chunkSize) {
+            int to = Math.min(bytes.length, chunk + chunkSize);
+            int next = chunk;
+            int end;
+            while ((end = scanner.nextRowEnd(bytes, next, to)) >= 0) {
+                if (!scanner.wasHeader()) {
+                    rows.add(new String(bytes, rowStart, end - rowStart, StandardCharsets.UTF_8));
+                }
+                rowStart = next = end + 1;
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    void keepsNewlinesInsideQuotedCsvFields() {
+        String csv = "1,\"two\nlines\"\n2,\"say \"\"hi\"\"\n\"\n3,plain\n";
+
+        for (int chunkSize : new int[]{1, 3, 1024}) {
+            assertEquals(List.of("1,\"two\nlines\"", "2,\"say \"\"hi\"\"\n\"", "3,plain"),
+                    rows(new CopyRowScanner(true, false), csv, chunkSize));
+        }
+    }
+
+    @Test
+    void skipsHeaderSplitAcrossChunks() {
+        CopyRowScanner scanner = new CopyRowScanner(true, true);
+
+        assertEquals(List.of("1,a", "2,b"), rows(scanner, "id,\"na\nme\"\n1,a\n2,b\n", 2));
+        assertFalse(scanner.inHeader());
+    }
+
+    @Test
+    void treatsBackslashNewlineAsDataInTextFormat() {
+        String tsv = "1\tline\\\ncontinued\n2\t\\\\\n3\t\"\n";
+
+        assertEquals(List.of("1\tline\\\ncontinued", "2\t\\\\", "3\t\""), rows(new CopyRowScanner(false, false), tsv, 4));
+    }
+
+    @Test
+    void reportsRowWithoutTrailingNewline() {
+        CopyRowScanner scanner = new CopyRowScanner(true, false);
+
+        assertEquals(List.of("1,a"), rows(scanner, "1,a\n2,b", 1024));
+        assertTrue(scanner.hasPendingRow());
+
+        CopyRowScanner complete = new CopyRowScanner(true, false);
+        rows(complete, "1,a\n", 1024);
+        assertFalse(complete.hasPendingRow());
+    }
+
+    @Test
+    void headerOnlyInputHasNoPendingRow() {
+        CopyRowScanner scanner = new CopyRowScanner(true, true);
+
+        assertEquals(List.of(), rows(scanner, "id,name", 1024));
+        assertTrue(scanner.inHeader());
+        assertFalse(scanner.hasPendingRow());
+    }
+}
@@ -0,0 +1,73 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import com.wcpk.db_schema_designer.dto.SchemaValidationResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.relationship;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.schema;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.table;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.tableWithId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeneratedSchemaCacheTests {
+
+    @Test
+    void keyIgnoresEditorIdsButNotDeclarationOrder() {
+        SchemaRequest design = schema(
+                List.of(table("author", "id", "int", "name", "text"), table("book", "id", "int")),
+                List.of(relationship("r1", "one-to-many", "author", "book"),
+                        relationship("r2", "many-to-many", "book", "author")));
+        SchemaRequest renamedIds = schema(
+                List.of(tableWithId("t1", "author", "id", "int", "name", "text"), tableWithId("t2", "book", "id", "int")),
+                List.of(relationship("x1", "one-to-many", "author", "book"),
+                        relationship("x2", "many-to-many", "book", "author")));
+        SchemaRequest tablesSwapped = schema(
+                List.of(table("book", "id", "int"), table("author", "id", "int", "name", "text")),
+                design.getRelationships());
+        SchemaRequest relationshipsSwapped = schema(design.getTables(),
+                List.of(design.getRelationships().get(1), design.getRelationships().get(0)));
+        SchemaRequest fieldsSwapped = schema(
+                List.of(table("author", "name", "text", "id", "int"), table("book", "id", "int")),
+                design.getRelationships());
+
+        assertEquals(GeneratedSchemaCache.keyOf(design), GeneratedSchemaCache.keyOf(renamedIds));
+        assertNotEquals(GeneratedSchemaCache.keyOf(design), GeneratedSchemaCache.keyOf(tablesSwapped));
+        assertNotEquals(GeneratedSchemaCache.keyOf(design), GeneratedSchemaCache.keyOf(relationshipsSwapped));
+        assertNotEquals(GeneratedSchemaCache.keyOf(design), GeneratedSchemaCache.keyOf(fieldsSwapped));
+    }
+
+    @Test
+    void callersCannotChangeCachedResults() {
+        GeneratedSchemaCache cache = new GeneratedSchemaCache();
+        ReflectionTestUtils.setField(cache, "maxEntries", 10);
+        ReflectionTestUtils.setField(cache, "maxBytes", 1_000_000L);
+
+        SchemaDiagnostic warning = new SchemaDiagnostic();
+        warning.setSeverity("WARNING");
+        warning.setCode("UNKNOWN_TYPE");
+        SchemaValidationResult result = new SchemaValidationResult(true, "CREATE TABLE a ();", new ArrayList<>(List.of(warning)));
+        cache.put("k", result);
+        warning.setSeverity("ERROR");
+        result.setValid(false);
+
+        SchemaValidationResult first = cache.get("k");
+        first.getDiagnostics().get(0).setCode("CHANGED");
+        first.setSql("DROP TABLE a;");
+        assertThrows(UnsupportedOperationException.class, () -> first.getDiagnostics().add(new SchemaDiagnostic()));
+
+        SchemaValidationResult second = cache.get("k");
+        assertTrue(second.isValid());
+        assertEquals("CREATE TABLE a ();", second.getSql());
+        assertEquals("WARNING", second.getDiagnostics().get(0).getSeverity());
+        assertEquals("UNKNOWN_TYPE", second.getDiagnostics().get(0).getCode());
+    }
+}
@@ -0,0 +1,76 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.BindValue;
+import com.wcpk.db_schema_designer.dto.ParameterizedQuery;
+import com.wcpk.db_schema_designer.dto.QueryRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PlSqlGenerateServiceTests {
+
+    private final PlSqlGenerateService service = new PlSqlGenerateService();
+
+    private static QueryRequest.WhereCondition where(String logical, String column, String type, String operator,
+                                                     String value, String value2) {
+        QueryRequest.WhereCondition cond = new QueryRequest.WhereCondition();
+        cond.setLogicalOperator(logical);
+        cond.setColumn(column);
+        cond.setColumnType(type);
+        cond.setOperator(operator);
+        cond.setValue(value);
+        cond.setValue2(value2);
+        return cond;
+    }
+
+    private static QueryRequest request(String type) {
+        QueryRequest.Value name = new QueryRequest.Value();
+        name.setColumn("name");
+        name.setColumnType("text");
+        name.setInclude(true);
+        name.setValue("x");
+
+        QueryRequest request = new QueryRequest();
+        request.setType(type);
+        request.setTable("people");
+        request.setValues(List.of(name));
+        request.setWhere(List.of(
+                where(null, "name", "text", "=", "O'Brien", null),
+                where("AND", "age", "int", "between", "1", "9"),
+                where("OR", "id", "int", "in", "1, 2", null),
+                where("AND", "note", "text", "is null", null, null)));
+        return request;
+    }
+
+    @Test
+    void everyStatementKindPrintsTheSameWhereClause() {
+        String where = "\nWHERE name = 'O''Brien' AND age between 1 AND 9 OR id in (1, 2) AND note is null";
+
+        assertEquals("SELECT *\nFROM people" + where, service.generateQueryCode(request("select")));
+        assertEquals("UPDATE people\nSET name = 'x'" + where, service.generateQueryCode(request("UPDATE")));
+        assertEquals("DELETE FROM people" + where, service.generateQueryCode(request("delete")));
+    }
+
+    @Test
+    void printsMissingValuesAsNull() {
+        QueryRequest request = request("delete");
+        request.setWhere(List.of(where(null, "born", "date", "between", "2000-01-01", null)));
+
+        assertEquals("DELETE FROM people\nWHERE born between '2000-01-01' AND NULL", service.generateQueryCode(request));
+    }
+
+    @Test
+    void numbersPlaceholdersInTextOrder() {
+        QueryRequest request = request("update");
+        request.setParameterStyle("$");
+
+        ParameterizedQuery query = service.generateParameterizedQuery(request);
+
+        assertEquals("UPDATE people\nSET name = $1\nWHERE name = $2 AND age between $3 AND $4 OR id in ($5, $6) AND note is null",
+                query.getSql());
+        assertEquals(List.of("x", "O'Brien", 1, 9, 1, 2),
+                query.getParameters().stream().map(BindValue::getValue).toList());
+    }
+}
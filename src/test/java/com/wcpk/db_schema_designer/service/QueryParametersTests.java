@@ -0,0 +1,77 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.BindValue;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueryParametersTests {
+
+    private static Object convert(String type, String value) {
+        QueryParameters parameters = new QueryParameters(QueryParameters.Style.DOLLAR);
+        parameters.add("c", type, value);
+        return parameters.values().get(0).getValue();
+    }
+
+    @Test
+    void handsOutPlaceholdersInTheRequestedStyle() {
+        QueryParameters dollar = new QueryParameters(QueryParameters.Style.of("$"));
+        QueryParameters question = new QueryParameters(QueryParameters.Style.of("question"));
+
+        assertEquals(List.of("$1", "$2"), List.of(dollar.add("a", "int", "1"), dollar.add("b", "text", "x")));
+        assertEquals(List.of("?", "?"), List.of(question.add("a", "int", "1"), question.add("b", "text", "x")));
+        assertEquals(List.of(1, 2), question.values().stream().map(BindValue::getIndex).toList());
+        assertEquals(QueryParameters.Style.DOLLAR, QueryParameters.Style.of(null));
+    }
+
+    @Test
+    void convertsValuesByColumnType() {
+        assertEquals((short) 7, convert("int2", "7"));
+        assertEquals(42, convert("INTEGER", " 42 "));
+        assertEquals(9_000_000_000L, convert("bigint", "9000000000"));
+        assertEquals(new BigDecimal("12.50"), convert("numeric(10,2)", "12.50"));
+        assertEquals(true, convert("boolean", "yes"));
+        assertEquals(LocalDate.of(2024, 5, 1), convert("date", "2024-05-01"));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), convert("timestamp(3) without time zone", "2024-05-01 10:00"));
+        assertEquals(UUID.fromString("00000000-0000-0000-0000-000000000001"),
+                convert("uuid", "00000000-0000-0000-0000-000000000001"));
+        assertEquals("{\"a\":1}", convert("jsonb", "{\"a\":1}"));
+    }
+
+    @Test
+    void parsesTimestamptzOffsetsInPostgresAndIsoForm() {
+        OffsetDateTime expected = OffsetDateTime.of(2024, 5, 1, 10, 0, 0, 0, ZoneOffset.ofHours(2));
+
+        assertEquals(expected, convert("timestamptz", "2024-05-01 10:00:00+02"));
+        assertEquals(expected, convert("timestamptz", "2024-05-01 10:00:00+0200"));
+        assertEquals(expected, convert("timestamp with time zone", "2024-05-01T10:00:00+02:00"));
+        assertEquals(OffsetDateTime.of(2024, 5, 1, 10, 0, 0, 500_000_000, ZoneOffset.ofHoursMinutes(5, 30)),
+                convert("timestamptz", "2024-05-01 10:00:00.5+05:30"));
+        assertEquals(OffsetDateTime.of(2024, 5, 1, 8, 0, 0, 0, ZoneOffset.UTC), convert("timestamptz", "2024-05-01T08:00:00Z"));
+        assertEquals(LocalDateTime.of(2024, 5, 1, 10, 0), convert("timestamptz", "2024-05-01 10:00"));
+    }
+
+    @Test
+    void treatsNullKeywordAsNullExceptForText() {
+        assertNull(convert("int", "null"));
+        assertEquals("NULL", convert("varchar(10)", "NULL"));
+    }
+
+    @Test
+    void rejectsValuesThatDoNotMatchTheType() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> convert("int", "abc"));
+        assertEquals("Invalid value 'abc' for column c of type int", e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> convert("timestamptz", "2024-05-01 10:00+2"));
+        assertThrows(IllegalArgumentException.class, () -> convert("bool", "maybe"));
+    }
+}
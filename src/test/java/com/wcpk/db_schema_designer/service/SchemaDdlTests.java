@@ -0,0 +1,50 @@
+package com.wcpk.db_schema_designer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.relationship;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.schema;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.table;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SchemaDdlTests {
+
+    @Test
+    void scriptCreatesRelationshipColumnsInlineAndAddsForeignKeysLast() {
+        SchemaModel model = SchemaModel.compile(schema(
+                List.of(table("author", "id", "serial"), table("book", "id", "int", "title", "text")),
+                List.of(relationship("r1", "one-to-many", "author", "book"),
+                        relationship("r2", "many-to-many", "author", "book"))));
+
+        SchemaDdl.Script script = SchemaDdl.script(model);
+        List<String> statements = new ArrayList<>();
+        for (int i = 0; i < script.size(); i++) {
+            statements.add(script.statement(i));
+        }
+
+        assertEquals(List.of(
+                "CREATE TABLE author (\n    id serial NOT NULL,\n    PRIMARY KEY (id)\n);\n",
+                "CREATE TABLE book (\n    id int NOT NULL,\n    title text,\n    author_id integer,\n"
+                        + "    PRIMARY KEY (id)\n);\n",
+                "CREATE TABLE author_book (\n    author_id integer NOT NULL,\n    book_id int NOT NULL,\n"
+                        + "    PRIMARY KEY (author_id, book_id),\n"
+                        + "    FOREIGN KEY (author_id) REFERENCES author(id),\n"
+                        + "    FOREIGN KEY (book_id) REFERENCES book(id)\n);\n",
+                "ALTER TABLE book ADD CONSTRAINT fk_book_author FOREIGN KEY (author_id) REFERENCES author(id);\n"),
+                statements);
+    }
+
+    @Test
+    void scriptSkipsRelationshipsWithoutAKnownType() {
+        SchemaModel model = SchemaModel.compile(schema(List.of(table("a", "id", "int"), table("b", "id", "int")),
+                List.of(relationship("r1", null, "a", "b"), relationship("r2", "many-to-few", "a", "b"))));
+
+        SchemaDdl.Script script = SchemaDdl.script(model);
+
+        assertEquals(2, script.size());
+        assertEquals("CREATE TABLE b (\n    id int NOT NULL,\n    PRIMARY KEY (id)\n);\n", script.statement(1));
+    }
+}
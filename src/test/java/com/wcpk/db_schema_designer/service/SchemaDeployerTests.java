@@ -0,0 +1,122 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.relationship;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.schema;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.table;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaDeployerTests {
+
+    /**
+     * A connection whose batches fail the way pgjdbc's do inside a transaction,
+     * with every entry marked EXECUTE_FAILED, while single statements fail only
+     * if they contain "bad".
+     */
+    private static Connection failingConnection(List<String> log) {
+        Statement stmt = (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "addBatch" -> {
+                        log.add("batch " + args[0]);
+                        yield null;
+                    }
+                    case "executeBatch" -> {
+                        int[] counts = new int[log.size()];
+                        Arrays.fill(counts, Statement.EXECUTE_FAILED);
+                        throw new BatchUpdateException("Batch entry 0 was aborted", counts);
+                    }
+                    case "execute" -> {
+                        log.add("execute " + args[0]);
+                        if (((String) args[0]).contains("bad")) throw new SQLException("syntax error", "42601");
+                        yield false;
+                    }
+                    case "close" -> null;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "createStatement" -> stmt;
+                    case "setAutoCommit", "commit" -> null;
+                    case "rollback" -> {
+                        log.add("rollback");
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    @Test
+    void ordersPhasesAndKeepsWavesLockDisjoint() {
+        SchemaRequest request = schema(List.of(table("hub", "id", "int"), table("a", "id", "int"),
+                table("b", "id", "int"), table("c", "id", "int")), List.of(
+                relationship("r1", "one-to-many", "hub", "a"),
+                relationship("r2", "one-to-many", "hub", "b"),
+                relationship("r3", "one-to-many", "c", "b"),
+                relationship("r4", "many-to-many", "a", "c")));
+
+        List<SchemaDeployer.Phase> phases = SchemaDeployer.plan(SchemaModel.compile(request));
+
+        assertEquals(List.of("tables", "junction tables", "foreign keys"),
+                phases.stream().map(SchemaDeployer.Phase::name).toList());
+        assertEquals(1, phases.get(0).waves().size());
+        assertEquals(4, phases.get(0).size());
+        assertTrue(phases.get(1).waves().get(0).get(0).sql().contains("FOREIGN KEY (a_id) REFERENCES a(id)"));
+        assertEquals(3, phases.get(2).size());
+
+        // hub -> a, hub -> b and c -> b: at most one statement per table per wave
+        for (List<SchemaDeployer.DeployStatement> wave : phases.get(2).waves()) {
+            Set<String> locked = new HashSet<>();
+            for (SchemaDeployer.DeployStatement statement : wave) {
+                assertTrue(Collections.disjoint(locked, statement.locks()));
+                locked.addAll(statement.locks());
+            }
+        }
+        assertEquals(2, phases.get(2).waves().size());
+    }
+
+    @Test
+    void blamesTheStatementThatFailsWhenRunAlone() throws SQLException {
+        List<String> log = new ArrayList<>();
+        List<SchemaDeployer.DeployStatement> chunk = List.of(
+                new SchemaDeployer.DeployStatement("CREATE TABLE a (id int);", "a", Set.of()),
+                new SchemaDeployer.DeployStatement("CREATE TABLE b (id bad);", "b", Set.of()),
+                new SchemaDeployer.DeployStatement("CREATE TABLE c (id int);", "c", Set.of()));
+
+        SchemaDeployer.ChunkResult result = SchemaDeployer.runChunk(failingConnection(log), chunk);
+
+        assertEquals(0, result.executed());
+        assertEquals("b", result.failure().getTable());
+        assertEquals("42601", result.failure().getCode());
+        assertEquals(List.of("rollback", "execute CREATE TABLE a (id int);", "execute CREATE TABLE b (id bad);", "rollback"),
+                log.subList(3, log.size()));
+    }
+
+    @Test
+    void reportsTheBatchErrorWhenEveryStatementSucceedsAlone() throws SQLException {
+        List<String> log = new ArrayList<>();
+        List<SchemaDeployer.DeployStatement> chunk = List.of(
+                new SchemaDeployer.DeployStatement("CREATE TABLE a (id int);", "a", Set.of()));
+
+        SchemaDeployer.ChunkResult result = SchemaDeployer.runChunk(failingConnection(log), chunk);
+
+        assertNull(result.failure().getStatement());
+        assertEquals("Batch entry 0 was aborted", result.failure().getMessage());
+        assertEquals("rollback", log.get(log.size() - 1));
+    }
+}
@@ -0,0 +1,69 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds {@link SchemaRequest} designs for the schema tests. Fields are given
+ * as name/type pairs; the first one is the primary key and the others are
+ * nullable.
+ */
+final class SchemaFixtures {
+
+    private SchemaFixtures() {
+    }
+
+    static SchemaRequest schema(List<SchemaRequest.Table> tables, List<SchemaRequest.Relationship> relationships) {
+        SchemaRequest request = new SchemaRequest();
+        request.setTables(tables);
+        request.setRelationships(relationships);
+        return request;
+    }
+
+    static SchemaRequest.Table table(String name, String... fields) {
+        return tableWithId(name, name, fields);
+    }
+
+    static SchemaRequest.Table tableWithId(String id, String name, String... fields) {
+        List<SchemaRequest.Field> list = new ArrayList<>();
+        for (int i = 0; i < fields.length; i += 2) {
+            SchemaRequest.Field field = field(fields[i], fields[i + 1], i == 0);
+            field.setNullable(i != 0);
+            list.add(field);
+        }
+        SchemaRequest.Table table = tableOf(name, list.toArray(SchemaRequest.Field[]::new));
+        table.setId(id);
+        return table;
+    }
+
+    static SchemaRequest.Table tableOf(String name, SchemaRequest.Field... fields) {
+        SchemaRequest.Table table = new SchemaRequest.Table();
+        table.setId(name);
+        table.setName(name);
+        table.setFields(new ArrayList<>(List.of(fields)));
+        return table;
+    }
+
+    static SchemaRequest.Field field(String name, String type, boolean primaryKey) {
+        SchemaRequest.Field field = new SchemaRequest.Field();
+        field.setName(name);
+        field.setType(type);
+        field.setPrimaryKey(primaryKey);
+        return field;
+    }
+
+    static SchemaRequest.Relationship relationship(String type, String source, String target) {
+        return relationship(null, type, source, target);
+    }
+
+    static SchemaRequest.Relationship relationship(String id, String type, String source, String target) {
+        SchemaRequest.Relationship rel = new SchemaRequest.Relationship();
+        rel.setId(id);
+        rel.setType(type);
+        rel.setSourceTableName(source);
+        rel.setTargetTableName(target);
+        return rel;
+    }
+}
@@ -0,0 +1,146 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import com.wcpk.db_schema_designer.model.Column;
+import com.wcpk.db_schema_designer.model.Index;
+import com.wcpk.db_schema_designer.model.Table;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.relationship;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.schema;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.tableWithId;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaMigrationPlannerTests {
+
+    private final SchemaMigrationPlanner planner = new SchemaMigrationPlanner();
+
+    private static SchemaModel model(List<SchemaRequest.Table> tables, List<SchemaRequest.Relationship> relationships) {
+        return SchemaModel.compile(schema(tables, relationships));
+    }
+
+    @Test
+    void unchangedDesignNeedsNoStatements() {
+        SchemaModel design = model(List.of(tableWithId("1", "author", "id", "int"), tableWithId("2", "book", "id", "int")),
+                List.of(relationship("r1", "many-to-many", "author", "book")));
+
+        assertEquals(List.of(), planner.plan(design, design).statements());
+    }
+
+    @Test
+    void renamesInsteadOfRecreating() {
+        SchemaModel previous = model(List.of(tableWithId("1", "users", "id", "int", "mail", "text"),
+                tableWithId("2", "post", "id", "int")), List.of(relationship("r1", "one-to-many", "users", "post")));
+        SchemaModel current = model(List.of(tableWithId("1", "account", "id", "int", "mail", "varchar(200)"),
+                tableWithId("2", "post", "id", "int")), List.of(relationship("r1", "one-to-many", "account", "post")));
+
+        SchemaMigrationPlanner.MigrationPlan plan = planner.plan(previous, current);
+
+        assertEquals(List.of(
+                "ALTER TABLE users RENAME TO account;\n",
+                "ALTER TABLE account RENAME CONSTRAINT users_pkey TO account_pkey;\n",
+                "ALTER TABLE account ALTER COLUMN mail TYPE varchar(200) USING mail::varchar(200);\n",
+                "ALTER TABLE post RENAME COLUMN users_id TO account_id;\n",
+                "ALTER TABLE post RENAME CONSTRAINT fk_post_users TO fk_post_account;\n"), plan.statements());
+        assertTrue(planner.setupScript(previous, plan).startsWith("CREATE TABLE users ("));
+    }
+
+    @Test
+    void dropsTablesFirstAndAddsForeignKeysAfterCreates() {
+        SchemaModel previous = model(List.of(tableWithId("1", "author", "id", "int"), tableWithId("2", "book", "id", "int")),
+                List.of(relationship("r1", "one-to-many", "author", "book")));
+        SchemaModel current = model(List.of(tableWithId("1", "author", "id", "bigint"), tableWithId("3", "review", "id", "int")),
+                List.of(relationship("r2", "one-to-many", "author", "review")));
+
+        List<String> statements = planner.plan(previous, current).statements();
+
+        assertEquals(List.of(
+                "DROP TABLE book;\n",
+                "ALTER TABLE author ALTER COLUMN id TYPE bigint USING id::bigint;\n"), statements.subList(0, 2));
+        assertTrue(statements.get(2).startsWith("CREATE TABLE review ("));
+        assertTrue(statements.get(2).contains("author_id bigint"));
+        assertEquals("ALTER TABLE review ADD CONSTRAINT fk_review_author FOREIGN KEY (author_id) REFERENCES author(id);\n",
+                statements.get(3));
+    }
+
+    @Test
+    void changesToSerialKeysUseTheUnderlyingIntegerType() {
+        SchemaModel previous = model(List.of(tableWithId("1", "author", "id", "int"), tableWithId("2", "book", "id", "int")),
+                List.of(relationship("r1", "one-to-many", "author", "book")));
+        SchemaModel current = model(List.of(tableWithId("1", "author", "id", "bigserial"), tableWithId("2", "book", "id", "int")),
+                List.of(relationship("r1", "one-to-many", "author", "book")));
+
+        assertEquals("bigint", current.table("book").column("author_id").type());
+        assertEquals(List.of(
+                "ALTER TABLE book DROP CONSTRAINT fk_book_author;\n",
+                "ALTER TABLE author ALTER COLUMN id TYPE bigint USING id::bigint;\n",
+                "ALTER TABLE book ALTER COLUMN author_id TYPE bigint USING author_id::bigint;\n",
+                "ALTER TABLE book ADD CONSTRAINT fk_book_author FOREIGN KEY (author_id) REFERENCES author(id);\n"),
+                planner.plan(previous, current).statements());
+    }
+
+    @Test
+    void onlinePlanRestoresForeignKeysOfTablesOutsideTheDesign() {
+        SchemaModel live = model(List.of(tableWithId("1", "users", "id", "int"), tableWithId("2", "audit", "id", "int")),
+                List.of(relationship("r1", "one-to-many", "users", "audit")));
+
+        SchemaModel widened = model(List.of(tableWithId("1", "users", "id", "bigint")), List.of());
+        SchemaMigrationPlanner.MigrationPlan plan = planner.planOnline(live, widened, false);
+        assertEquals(List.of(
+                "ALTER TABLE audit DROP CONSTRAINT fk_audit_users;\n",
+                "ALTER TABLE users ALTER COLUMN id TYPE bigint USING id::bigint;\n",
+                "ALTER TABLE audit ADD CONSTRAINT fk_audit_users FOREIGN KEY (users_id) REFERENCES users(id) NOT VALID;\n",
+                "ALTER TABLE audit VALIDATE CONSTRAINT fk_audit_users;\n"), plan.statements());
+        assertEquals(List.of(), plan.warnings());
+
+        SchemaModel rekeyed = model(List.of(tableWithId("1", "users", "uid", "int", "id", "int")), List.of());
+        plan = planner.planOnline(live, rekeyed, false);
+        assertEquals("ALTER TABLE audit DROP CONSTRAINT fk_audit_users;\n", plan.statements().get(0));
+        assertTrue(plan.statements().stream().noneMatch(sql -> sql.contains("ADD CONSTRAINT fk_audit_users")));
+        assertEquals(1, plan.warnings().size());
+    }
+
+    @Test
+    void onlinePlanAvoidsLongLocksAndKeepsUnknownObjects() {
+        Table users = new Table("users");
+        users.setSchema("public");
+        Column id = new Column("id", "int4");
+        id.setFormattedType("integer");
+        id.setNullable(false);
+        Column email = new Column("email", "varchar");
+        email.setFormattedType("character varying(100)");
+        Column legacy = new Column("legacy", "text");
+        legacy.setFormattedType("text");
+        users.getColumns().addAll(List.of(id, email, legacy));
+        users.getPrimaryKey().add("id");
+        Index pkey = new Index("users_pkey");
+        pkey.setPrimary(true);
+        pkey.setUnique(true);
+        users.getIndexes().add(pkey);
+        SchemaModel live = SchemaModel.fromCatalog(List.of(users), "public");
+
+        SchemaRequest.Table design = tableWithId("1", "users", "id", "serial", "email", "varchar(200)");
+        design.getFields().get(1).setNullable(false);
+        design.getFields().get(1).setUnique(true);
+        SchemaModel current = model(List.of(design, tableWithId("2", "orders", "id", "int")),
+                List.of(relationship("r1", "one-to-many", "users", "orders")));
+
+        List<SchemaMigrationPlanner.Step> steps = planner.planOnline(live, current, false).steps();
+
+        assertEquals(List.of(
+                SchemaMigrationPlanner.Operation.ALTER_TYPE_IN_PLACE,
+                SchemaMigrationPlanner.Operation.ADD_CHECK_NOT_VALID,
+                SchemaMigrationPlanner.Operation.VALIDATE_CONSTRAINT,
+                SchemaMigrationPlanner.Operation.SET_NOT_NULL_CHECKED,
+                SchemaMigrationPlanner.Operation.DROP_CONSTRAINT,
+                SchemaMigrationPlanner.Operation.CREATE_INDEX_CONCURRENTLY,
+                SchemaMigrationPlanner.Operation.ADD_KEY_USING_INDEX,
+                SchemaMigrationPlanner.Operation.CREATE_TABLE,
+                SchemaMigrationPlanner.Operation.ADD_FOREIGN_KEY), steps.stream().map(SchemaMigrationPlanner.Step::operation).toList());
+        assertEquals("ALTER TABLE users ALTER COLUMN email TYPE varchar(200);\n", steps.get(0).sql());
+        assertEquals("CREATE UNIQUE INDEX CONCURRENTLY users_email_key ON users (email);\n", steps.get(5).sql());
+    }
+}
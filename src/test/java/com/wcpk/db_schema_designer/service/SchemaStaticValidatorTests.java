@@ -0,0 +1,69 @@
+package com.wcpk.db_schema_designer.service;
+
+import com.wcpk.db_schema_designer.dto.SchemaDiagnostic;
+import com.wcpk.db_schema_designer.dto.SchemaRequest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.relationship;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.schema;
+import static com.wcpk.db_schema_designer.service.SchemaFixtures.table;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SchemaStaticValidatorTests {
+
+    private final SchemaStaticValidator validator = new SchemaStaticValidator();
+
+    private static List<String> codes(List<SchemaDiagnostic> diagnostics) {
+        return diagnostics.stream().map(SchemaDiagnostic::getCode).toList();
+    }
+
+    @Test
+    void acceptsValidDesign() {
+        SchemaRequest request = schema(List.of(table("author", "id", "bigserial", "name", "varchar(100)"),
+                table("book", "id", "integer", "published", "timestamp(3) with time zone", "tags", "text[]")),
+                List.of(relationship("many-to-many", "author", "book")));
+
+        assertEquals(List.of(), validator.validate(request));
+    }
+
+    @Test
+    void reportsNamingAndTypeProblems() {
+        SchemaRequest request = schema(List.of(table("user", "id", "int"), table("item", "id", "int", "ID", "strng"),
+                table("item", "id", "int")), List.of());
+
+        List<String> codes = codes(validator.validate(request));
+        assertEquals(List.of("RESERVED_NAME", "DUPLICATE_COLUMN", "UNKNOWN_TYPE", "DUPLICATE_TABLE"), codes);
+    }
+
+    @Test
+    void onlyWarnsAboutTypesThatAreNotBuiltIn() {
+        SchemaRequest request = schema(List.of(table("account", "id", "integer", "email", "citext",
+                "status", "account_status")), List.of());
+
+        List<SchemaDiagnostic> diagnostics = validator.validate(request);
+        assertEquals(List.of("UNKNOWN_TYPE", "UNKNOWN_TYPE"), codes(diagnostics));
+        assertTrue(diagnostics.stream().allMatch(d -> "WARNING".equals(d.getSeverity())));
+    }
+
+    @Test
+    void reportsRelationshipProblems() {
+        SchemaRequest.Table keyless = table("log", "message", "text");
+        keyless.getFields().get(0).setPrimaryKey(false);
+
+        SchemaRequest request = schema(List.of(table("a", "id", "uuid"), table("b", "id", "integer"), keyless),
+                List.of(
+                relationship("one-to-many", "log", "a"),
+                relationship("inheritance", "a", "b"),
+                relationship("inheritance", "b", "a"),
+                relationship("one-to-one", "a", "missing")));
+
+        List<String> codes = codes(validator.validate(request));
+        assertTrue(codes.contains("MISSING_PRIMARY_KEY"));
+        assertTrue(codes.contains("FK_TYPE_MISMATCH"));
+        assertTrue(codes.contains("INHERITANCE_CYCLE"));
+        assertTrue(codes.contains("UNKNOWN_TABLE"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.wcpk.db_schema_designer.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlScriptReaderTests {
+
+    private static List<SqlScriptReader.ParsedStatement> readAll(String script) throws IOException {
+        SqlScriptReader reader = new SqlScriptReader(new StringReader(script));
+        List<SqlScriptReader.ParsedStatement> statements = new ArrayList<>();
+        SqlScriptReader.ParsedStatement statement;
+        while ((statement = reader.next()) != null) {
+            statements.add(statement);
+        }
+        return statements;
+    }
+
+    @Test
+    void splitsOnSemicolonsOutsideLiteralsAndComments() throws IOException {
+        List<SqlScriptReader.ParsedStatement> statements = readAll("""
+                -- leading comment;
+                INSERT INTO t VALUES ('a;b', E'it\\'s;', "odd;name");
+                /* outer /* nested; */ still comment; */
+                SELECT 1 /* inline; */;
+                """);
+
+        assertEquals(2, statements.size());
+        assertEquals("INSERT INTO t VALUES ('a;b', E'it\\'s;', \"odd;name\")", statements.get(0).sql());
+        assertEquals(2, statements.get(0).line());
+        assertEquals(SqlScriptReader.Kind.BATCHABLE, statements.get(0).kind());
+        assertEquals("SELECT 1 /* inline; */", statements.get(1).sql());
+        assertEquals(SqlScriptReader.Kind.QUERY, statements.get(1).kind());
+    }
+
+    @Test
+    void keepsDollarQuotedBodiesTogether() throws IOException {
+        List<SqlScriptReader.ParsedStatement> statements = readAll("""
+                CREATE FUNCTION f() RETURNS void AS $$
+                BEGIN
+                    PERFORM 1; RAISE NOTICE '$body$;';
+                END;
+                $$ LANGUAGE plpgsql;
+                DO $body$ BEGIN PERFORM $1; END $body$;
+                """);
+
+        assertEquals(2, statements.size());
+        assertTrue(statements.get(0).sql().endsWith("$$ LANGUAGE plpgsql"));
+        assertEquals("DO $body$ BEGIN PERFORM $1; END $body$", statements.get(1).sql());
+    }
+
+    @Test
+    void exposesCopyDataAndResumesAfterTerminator() throws IOException {
+        SqlScriptReader reader = new SqlScriptReader(new StringReader("""
+                COPY t (a, b) FROM stdin;
+                1\tx;y
+                2\tz
+                \\.
+                ANALYZE t;
+                """));
+
+        SqlScriptReader.ParsedStatement copy = reader.next();
+        assertEquals(SqlScriptReader.Kind.COPY_IN, copy.kind());
+        StringWriter data = new StringWriter();
+        try (Reader in = reader.copyData()) {
+            in.transferTo(data);
+        }
+        assertEquals("1\tx;y\n2\tz\n", data.toString());
+
+        SqlScriptReader.ParsedStatement next = reader.next();
+        assertEquals("ANALYZE t", next.sql());
+        assertEquals(5, next.line());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void skipsEmptyStatements() throws IOException {
+        List<SqlScriptReader.ParsedStatement> statements = readAll(";\nCREATE TABLE t (a int);;\n ; INSERT INTO t VALUES (1);;");
+
+        assertEquals(List.of("CREATE TABLE t (a int)", "INSERT INTO t VALUES (1)"),
+                statements.stream().map(SqlScriptReader.ParsedStatement::sql).toList());
+        assertEquals(1, statements.get(1).index());
+    }
+
+    @Test
+    void classifiesStatementsThatCannotBeBatched() {
+        assertEquals(SqlScriptReader.Kind.STANDALONE, SqlScriptReader.classify("CREATE INDEX CONCURRENTLY i ON t (a)"));
+        assertEquals(SqlScriptReader.Kind.STANDALONE, SqlScriptReader.classify("COMMIT"));
+        assertEquals(SqlScriptReader.Kind.BATCHABLE, SqlScriptReader.classify("CREATE TABLE t (a int)"));
+    }
+
+    @Test
+    void onlySavepointsOfTheStandaloneStatementsRunInsideATransaction() throws IOException {
+        List<SqlScriptReader.ParsedStatement> statements = readAll("""
+                SAVEPOINT s; ROLLBACK TO SAVEPOINT s; RELEASE s; INSERT INTO t VALUES (1);
+                COMMIT; BEGIN; ROLLBACK; VACUUM t; CREATE INDEX CONCURRENTLY i ON t (a);
+                """);
+
+        assertEquals(List.of(true, true, true, true, false, false, false, false, false),
+                statements.stream().map(SqlScriptReader::allowedInTransaction).toList());
+    }
+
+    @Test
+    void stripsTrailingSemicolonsForWrapping() {
+        assertEquals("SELECT 1", SqlScriptReader.stripTrailingSemicolons("  SELECT 1 ;\n ; "));
+        assertEquals("SELECT ';'", SqlScriptReader.stripTrailingSemicolons("SELECT ';'"));
+    }
+}